@@ -2,6 +2,7 @@ package com.hospital.invoice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 电子发票系统主启动类
@@ -16,8 +17,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * 1. 直接运行此类的main方法即可启动整个应用
  * 2. 默认启动后访问地址为：http://localhost:8080
  * 3. 接口访问路径示例：http://localhost:8080/api/invoice/list
+ * 
+ * @EnableScheduling：启用定时任务（发票归属索引的定时刷新）
  */
 @SpringBootApplication
+@EnableScheduling
 public class InvoiceApplication {
     
     /**
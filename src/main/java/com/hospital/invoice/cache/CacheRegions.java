@@ -0,0 +1,55 @@
+package com.hospital.invoice.cache;
+
+/**
+ * Hibernate 二级缓存区域名称
+ * 实体上的 @Cache、Repository 上的查询缓存提示、SecondLevelCacheConfig 创建缓存时共用
+ * 
+ * 说明：
+ * 1. 每个区域对应一个独立的 JCache 缓存，条数上限和过期时间分别配置（invoice.cache.l2.*）
+ * 2. 查询缓存只保存查询结果的主键列表，实体内容仍从实体区域读取
+ */
+public final class CacheRegions {
+    
+    /**
+     * 发票详情视图实体
+     */
+    public static final String DETAIL_VIEW = "invoice.detailView";
+    
+    /**
+     * 发票详情视图实体（核心字段）
+     */
+    public static final String DETAIL_CORE_VIEW = "invoice.detailCoreView";
+    
+    /**
+     * 发票列表视图实体
+     */
+    public static final String LIST_VIEW = "invoice.listView";
+    
+    /**
+     * 发票列表视图实体（简化版）
+     */
+    public static final String LIST_VIEW_SIMPLE = "invoice.listViewSimple";
+    
+    /**
+     * 发票详情查询结果
+     */
+    public static final String DETAIL_QUERY = "invoice.query.detail";
+    
+    /**
+     * 发票列表查询结果
+     */
+    public static final String LIST_QUERY = "invoice.query.list";
+    
+    /**
+     * Hibernate 默认查询结果区域（未指定区域的可缓存查询）
+     */
+    public static final String DEFAULT_QUERY = "default-query-results-region";
+    
+    /**
+     * Hibernate 表更新时间戳区域（用于判断查询缓存是否过期）
+     */
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+    
+    private CacheRegions() {
+    }
+}
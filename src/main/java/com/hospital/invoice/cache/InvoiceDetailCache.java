@@ -0,0 +1,250 @@
+package com.hospital.invoice.cache;
+
+import com.hospital.invoice.entity.view.InvoiceDetailCore;
+import com.hospital.invoice.enums.InvoiceStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发票详情缓存（进程内）
+ * 
+ * 缓存 发票ID + 患者ID -> 发票，以及 收据号 + 患者ID -> 发票（按主键查询的结果），
+ * 只缓存权限校验通过的结果。权限校验写入的是核心字段（InvoiceDetailCoreView），
+ * 查询详情加载完整字段后替换为完整的详情视图（InvoiceDetailView）
+ * 
+ * 过期策略按发票状态区分：
+ * 1. 已开票、已作废、已冲红：开票后内容基本不再变化，使用较长的过期时间
+ * 2. 待开票及其他状态：随时可能开票，使用较短的过期时间
+ * 
+ * 取舍：已开票的发票仍可能被作废或冲红，发票数据由HIS写入，本缓存感知不到变化。
+ * 写入方调用 InvoiceCacheService 失效后立即生效；未调用时作废、冲红最长在 stable-ttl-seconds 内
+ * 仍显示为已开票，因此该时间不宜过长（默认5分钟），按业务可接受的延迟配置
+ * 
+ * 按条数限制容量（LRU淘汰），支持按发票、按患者或整体失效。
+ * 缓存的视图对象为只读使用，调用方不能修改。
+ */
+@Component
+public class InvoiceDetailCache {
+    
+    /**
+     * 缓存key各部分的分隔符（不会出现在正常参数中）
+     */
+    private static final char KEY_SEPARATOR = '\u0001';
+    
+    /**
+     * 是否启用缓存
+     */
+    @Value("${invoice.cache.detail.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 内容稳定的发票（已开票、已作废、已冲红）的过期时间（秒），也是未主动失效时作废、冲红的最长显示延迟
+     */
+    @Value("${invoice.cache.detail.stable-ttl-seconds:300}")
+    private long stableTtlSeconds;
+    
+    /**
+     * 其他状态（待开票等）发票的过期时间（秒）
+     */
+    @Value("${invoice.cache.detail.volatile-ttl-seconds:30}")
+    private long volatileTtlSeconds;
+    
+    /**
+     * 最多缓存的发票条数
+     */
+    @Value("${invoice.cache.detail.max-entries:10000}")
+    private int maxEntries;
+    
+    /**
+     * 发票ID + 患者ID -> 发票
+     */
+    private RemovableLRUCache<String, InvoiceDetailCore> details;
+    
+    /**
+     * 收据号 + 患者ID -> 发票
+     */
+    private RemovableLRUCache<String, InvoiceDetailCore> receipts;
+    
+    // 统计指标
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stablePuts = new LongAdder();
+    private final LongAdder volatilePuts = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        // 默认过期时间不生效，每条记录写入时按状态单独指定
+        this.details = new RemovableLRUCache<>(maxEntries, volatileTtlSeconds * 1000);
+        this.receipts = new RemovableLRUCache<>(maxEntries, volatileTtlSeconds * 1000);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 获取发票详情
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @return 命中返回发票，未命中返回null
+     */
+    public InvoiceDetailCore get(String invoiceId, String patientId) {
+        return count(details.get(key(invoiceId, patientId), false));
+    }
+    
+    /**
+     * 按收据号获取发票详情
+     * 
+     * @param rcptNo 收据号
+     * @param patientId 患者ID
+     * @return 命中返回发票，未命中返回null
+     */
+    public InvoiceDetailCore getByRcptNo(String rcptNo, String patientId) {
+        return count(receipts.get(key(rcptNo, patientId), false));
+    }
+    
+    /**
+     * 写入发票详情，过期时间按发票状态决定
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @param view 权限校验通过的发票
+     */
+    public void put(String invoiceId, String patientId, InvoiceDetailCore view) {
+        details.put(key(invoiceId, patientId), view, ttlMillis(view));
+    }
+    
+    /**
+     * 按收据号写入发票详情，过期时间按发票状态决定
+     * 
+     * @param rcptNo 收据号
+     * @param patientId 患者ID
+     * @param view 权限校验通过的发票
+     */
+    public void putByRcptNo(String rcptNo, String patientId, InvoiceDetailCore view) {
+        receipts.put(key(rcptNo, patientId), view, ttlMillis(view));
+    }
+    
+    /**
+     * 使某张收据的缓存失效
+     * 
+     * @param rcptNo 收据号
+     */
+    public void invalidateReceipt(String rcptNo) {
+        if (rcptNo == null) {
+            return;
+        }
+        invalidations.increment();
+        String prefix = rcptNo + KEY_SEPARATOR;
+        receipts.removeIf((key, view) -> key.startsWith(prefix));
+        details.removeIf((key, view) -> rcptNo.equals(view.getRcptNo()));
+    }
+    
+    /**
+     * 使某张发票的缓存失效
+     * 发票状态或内容发生变化（开票、作废、冲红、重新生成PDF等）后调用
+     * 
+     * @param invoiceId 发票ID
+     */
+    public void invalidateInvoice(String invoiceId) {
+        if (invoiceId == null) {
+            return;
+        }
+        invalidations.increment();
+        String prefix = invoiceId + KEY_SEPARATOR;
+        details.removeIf((key, view) -> key.startsWith(prefix));
+        receipts.removeIf((key, view) -> invoiceId.equals(view.getInvoiceId()));
+    }
+    
+    /**
+     * 使某患者的全部发票详情缓存失效
+     * 
+     * @param patientId 患者ID
+     */
+    public void invalidatePatient(String patientId) {
+        if (patientId == null) {
+            return;
+        }
+        invalidations.increment();
+        String suffix = KEY_SEPARATOR + patientId;
+        details.removeIf((key, view) -> key.endsWith(suffix));
+        receipts.removeIf((key, view) -> key.endsWith(suffix));
+    }
+    
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        details.clear();
+        receipts.clear();
+    }
+    
+    /**
+     * 缓存统计指标
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    public Map<String, Object> stats() {
+        long total = hits.sum() + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("stableTtlSeconds", stableTtlSeconds);
+        stats.put("volatileTtlSeconds", volatileTtlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", total > 0 ? (double) hits.sum() / total : 0.0);
+        stats.put("stablePuts", stablePuts.sum());
+        stats.put("volatilePuts", volatilePuts.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("size", details.size());
+        stats.put("receiptSize", receipts.size());
+        stats.put("capacity", maxEntries);
+        return stats;
+    }
+    
+    /**
+     * 统计命中/未命中
+     */
+    private InvoiceDetailCore count(InvoiceDetailCore view) {
+        if (view != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return view;
+    }
+    
+    /**
+     * 按发票状态决定过期时间（毫秒）
+     */
+    private long ttlMillis(InvoiceDetailCore view) {
+        if (isStable(view.getStatus())) {
+            stablePuts.increment();
+            return stableTtlSeconds * 1000;
+        }
+        volatilePuts.increment();
+        return volatileTtlSeconds * 1000;
+    }
+    
+    /**
+     * 发票内容是否已稳定（开票后的状态）
+     */
+    private static boolean isStable(String status) {
+        InvoiceStatus invoiceStatus = status != null ? InvoiceStatus.fromCode(status) : null;
+        return invoiceStatus == InvoiceStatus.ISSUED
+                || invoiceStatus == InvoiceStatus.CANCELLED
+                || invoiceStatus == InvoiceStatus.REVERSED;
+    }
+    
+    private static String key(String id, String patientId) {
+        return id + KEY_SEPARATOR + patientId;
+    }
+}
@@ -0,0 +1,434 @@
+package com.hospital.invoice.cache;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.hospital.invoice.common.CursorPage;
+import com.hospital.invoice.dto.request.InvoiceListRequest;
+import com.hospital.invoice.dto.response.InvoiceListVO;
+import com.hospital.invoice.dto.response.InvoiceSummaryVO;
+import com.hospital.invoice.util.InvoiceListCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发票列表结果缓存（进程内）
+ * 
+ * 缓存两类数据：
+ * 1. 患者快照：某患者未加筛选条件的完整发票列表（按 CREATE_TIME DESC, RCPT_NO 排序）
+ *    按类型、状态、日期范围筛选及翻页的请求直接在快照上计算，不再访问数据库
+ * 2. 分页结果：以 患者ID + 规范化后的筛选条件 + 游标 + 每页条数 为key的单页结果
+ *    用于快照无法回答的请求（按姓名/手机号筛选，或患者发票过多未建快照）
+ * 3. 患者汇总：按类型、状态、月份的统计结果，与列表数据来自同一视图，随患者整体失效
+ * 
+ * 两类缓存都按条数限制容量（LRU淘汰），按写入时间计算过期（TTL），
+ * 并支持按患者整体失效。
+ */
+@Component
+public class InvoiceListCache {
+    
+    /**
+     * 缓存key各部分的分隔符（不会出现在正常参数中）
+     */
+    private static final char KEY_SEPARATOR = '\u0001';
+    
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    /**
+     * 是否启用缓存
+     */
+    @Value("${invoice.cache.list.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 缓存过期时间（秒），从写入开始计算
+     */
+    @Value("${invoice.cache.list.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    /**
+     * 患者快照最多缓存的患者数
+     */
+    @Value("${invoice.cache.list.max-patients:2000}")
+    private int maxPatients;
+    
+    /**
+     * 单个患者快照的最大发票条数，超过则不建快照，改为缓存分页结果
+     */
+    @Value("${invoice.cache.list.max-rows-per-patient:500}")
+    private int maxRowsPerPatient;
+    
+    /**
+     * 分页结果最多缓存的条数
+     */
+    @Value("${invoice.cache.list.max-pages:5000}")
+    private int maxPages;
+    
+    /**
+     * 患者ID -> 患者快照
+     */
+    private LRUCache<String, PatientSnapshot> snapshots;
+    
+    /**
+     * 分页查询key -> 分页结果
+     */
+    private RemovableLRUCache<String, CursorPage<InvoiceListVO>> pages;
+    
+    /**
+     * 患者ID -> 患者汇总
+     */
+    private LRUCache<String, InvoiceSummaryVO> summaries;
+    
+    // 统计指标
+    private final LongAdder snapshotHits = new LongAdder();
+    private final LongAdder pageHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder summaryHits = new LongAdder();
+    private final LongAdder summaryMisses = new LongAdder();
+    private final LongAdder snapshotLoads = new LongAdder();
+    private final LongAdder oversizedLoads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        long ttlMillis = ttlSeconds * 1000;
+        this.snapshots = CacheUtil.newLRUCache(maxPatients, ttlMillis);
+        this.pages = new RemovableLRUCache<>(maxPages, ttlMillis);
+        this.summaries = CacheUtil.newLRUCache(maxPatients, ttlMillis);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 单个患者快照的最大发票条数
+     */
+    public int getMaxRowsPerPatient() {
+        return maxRowsPerPatient;
+    }
+    
+    /**
+     * 规范化查询条件：去除首尾空格，空字符串视为未传
+     * 规范化后相同的请求对应同一个缓存key，查询数据库时也使用规范化后的条件
+     * 
+     * @param request 原始请求
+     * @return 规范化后的新请求对象（不修改原请求）
+     */
+    public static InvoiceListRequest normalize(InvoiceListRequest request) {
+        InvoiceListRequest normalized = new InvoiceListRequest();
+        normalized.setHospitalCode(request.getHospitalCode());
+        normalized.setHospitalName(request.getHospitalName());
+        normalized.setTickets(request.getTickets());
+        normalized.setPatientId(trimToNull(request.getPatientId()));
+        normalized.setPatientName(trimToNull(request.getPatientName()));
+        normalized.setPhoneNumber(trimToNull(request.getPhoneNumber()));
+        normalized.setInvoiceType(trimToNull(request.getInvoiceType()));
+        normalized.setStatus(trimToNull(request.getStatus()));
+        normalized.setStartDate(trimToNull(request.getStartDate()));
+        normalized.setEndDate(trimToNull(request.getEndDate()));
+        normalized.setCursor(trimToNull(request.getCursor()));
+        normalized.setPageSize(request.getPageSize());
+        return normalized;
+    }
+    
+    /**
+     * 从缓存中获取一页结果：先查分页结果缓存，再尝试用患者快照计算
+     * 
+     * @param request 规范化后的查询条件
+     * @param cursor 分页游标（第一页为null）
+     * @param pageSize 实际每页条数
+     * @return 命中返回分页结果，未命中返回null
+     */
+    public CursorPage<InvoiceListVO> get(InvoiceListRequest request, InvoiceListCursor cursor, int pageSize) {
+        CursorPage<InvoiceListVO> page = pages.get(pageKey(request, pageSize), false);
+        if (page != null) {
+            pageHits.increment();
+            return page;
+        }
+        if (isSnapshotAnswerable(request)) {
+            PatientSnapshot snapshot = snapshots.get(request.getPatientId(), false);
+            if (snapshot != null && snapshot.isComplete()) {
+                snapshotHits.increment();
+                return snapshot.page(request, cursor, pageSize);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+    
+    /**
+     * 是否需要为该请求加载患者快照
+     * 快照只能回答按类型、状态、日期筛选的请求；已知发票过多的患者在过期前不再重复加载
+     * 
+     * @param request 规范化后的查询条件
+     * @return true-应加载快照，false-直接查询分页结果
+     */
+    public boolean shouldLoadSnapshot(InvoiceListRequest request) {
+        return isSnapshotAnswerable(request) && !snapshots.containsKey(request.getPatientId());
+    }
+    
+    /**
+     * 写入患者快照
+     * 
+     * @param patientId 患者ID
+     * @param rows 患者未加筛选的发票列表（按 CREATE_TIME DESC, RCPT_NO 排序）
+     * @param complete 是否为完整列表（false表示发票数超过上限，只记录标记不保存数据）
+     */
+    public void putSnapshot(String patientId, List<InvoiceListVO> rows, boolean complete) {
+        snapshotLoads.increment();
+        if (complete) {
+            snapshots.put(patientId, new PatientSnapshot(Collections.unmodifiableList(new ArrayList<>(rows))));
+        } else {
+            oversizedLoads.increment();
+            snapshots.put(patientId, PatientSnapshot.OVERSIZED);
+        }
+    }
+    
+    /**
+     * 用患者快照计算一页结果（快照刚写入时调用）
+     * 
+     * @return 快照存在且完整时返回结果，否则返回null
+     */
+    public CursorPage<InvoiceListVO> pageFromSnapshot(InvoiceListRequest request, InvoiceListCursor cursor, int pageSize) {
+        PatientSnapshot snapshot = snapshots.get(request.getPatientId(), false);
+        if (snapshot == null || !snapshot.isComplete()) {
+            return null;
+        }
+        return snapshot.page(request, cursor, pageSize);
+    }
+    
+    /**
+     * 用患者快照取最新的N张发票（快照已按开票时间倒序排列）
+     * 
+     * @param patientId 患者ID
+     * @param limit 最多返回的条数
+     * @return 快照存在且完整时返回结果，否则返回null
+     */
+    public List<InvoiceListVO> latestFromSnapshot(String patientId, int limit) {
+        PatientSnapshot snapshot = snapshots.get(patientId, false);
+        if (snapshot == null || !snapshot.isComplete()) {
+            return null;
+        }
+        snapshotHits.increment();
+        return snapshot.rows.subList(0, Math.min(limit, snapshot.rows.size()));
+    }
+    
+    /**
+     * 写入分页结果
+     */
+    public void putPage(InvoiceListRequest request, int pageSize, CursorPage<InvoiceListVO> page) {
+        pages.put(pageKey(request, pageSize), page);
+    }
+    
+    /**
+     * 获取患者汇总
+     * 
+     * @param patientId 患者ID
+     * @return 命中返回汇总结果，未命中返回null
+     */
+    public InvoiceSummaryVO getSummary(String patientId) {
+        InvoiceSummaryVO summary = summaries.get(patientId, false);
+        if (summary != null) {
+            summaryHits.increment();
+        } else {
+            summaryMisses.increment();
+        }
+        return summary;
+    }
+    
+    /**
+     * 写入患者汇总
+     */
+    public void putSummary(String patientId, InvoiceSummaryVO summary) {
+        summaries.put(patientId, summary);
+    }
+    
+    /**
+     * 使某患者的全部缓存失效（快照、分页结果和汇总）
+     * 患者发票发生变化（开票、作废、冲红等）后调用
+     * 
+     * @param patientId 患者ID
+     */
+    public void invalidatePatient(String patientId) {
+        if (patientId == null) {
+            return;
+        }
+        invalidations.increment();
+        snapshots.remove(patientId);
+        summaries.remove(patientId);
+        String prefix = patientId + KEY_SEPARATOR;
+        pages.removeIf((key, page) -> key.startsWith(prefix));
+    }
+    
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        snapshots.clear();
+        pages.clear();
+        summaries.clear();
+    }
+    
+    /**
+     * 缓存统计指标
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    public Map<String, Object> stats() {
+        long hits = snapshotHits.sum() + pageHits.sum();
+        long total = hits + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits);
+        stats.put("snapshotHits", snapshotHits.sum());
+        stats.put("pageHits", pageHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", total > 0 ? (double) hits / total : 0.0);
+        stats.put("snapshotLoads", snapshotLoads.sum());
+        stats.put("oversizedLoads", oversizedLoads.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("snapshotSize", snapshots.size());
+        stats.put("snapshotCapacity", maxPatients);
+        stats.put("pageSize", pages.size());
+        stats.put("pageCapacity", maxPages);
+        stats.put("summaryHits", summaryHits.sum());
+        stats.put("summaryMisses", summaryMisses.sum());
+        stats.put("summarySize", summaries.size());
+        return stats;
+    }
+    
+    /**
+     * 患者快照能否回答该请求
+     * 姓名、手机号是模糊匹配，交给数据库处理
+     */
+    private static boolean isSnapshotAnswerable(InvoiceListRequest request) {
+        return request.getPatientName() == null && request.getPhoneNumber() == null;
+    }
+    
+    /**
+     * 分页结果缓存key：患者ID在最前，便于按患者失效
+     */
+    private static String pageKey(InvoiceListRequest request, int pageSize) {
+        StringBuilder key = new StringBuilder(128);
+        key.append(request.getPatientId()).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getPatientName())).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getPhoneNumber())).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getInvoiceType())).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getStatus())).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getStartDate())).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getEndDate())).append(KEY_SEPARATOR)
+           .append(nullToEmpty(request.getCursor())).append(KEY_SEPARATOR)
+           .append(pageSize);
+        return key.toString();
+    }
+    
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+    
+    /**
+     * 患者快照
+     * 保存患者未加筛选的完整发票列表，筛选和翻页规则与数据库查询保持一致
+     */
+    static final class PatientSnapshot {
+        
+        /**
+         * 发票过多未建快照的标记
+         */
+        static final PatientSnapshot OVERSIZED = new PatientSnapshot(null);
+        
+        private final List<InvoiceListVO> rows;
+        
+        PatientSnapshot(List<InvoiceListVO> rows) {
+            this.rows = rows;
+        }
+        
+        boolean isComplete() {
+            return rows != null;
+        }
+        
+        /**
+         * 在快照上筛选并取一页
+         * 开票时间格式为 yyyy-MM-dd HH:mm:ss，可以直接按字符串比较大小
+         */
+        CursorPage<InvoiceListVO> page(InvoiceListRequest request, InvoiceListCursor cursor, int pageSize) {
+            // 与SQL条件相同：CREATE_TIME >= 开始日期0点，CREATE_TIME <= 结束日期次日0点
+            String from = request.getStartDate() != null
+                    ? TIME_FORMATTER.format(LocalDate.parse(request.getStartDate()).atStartOfDay()) : null;
+            String to = request.getEndDate() != null
+                    ? TIME_FORMATTER.format(LocalDate.parse(request.getEndDate()).plusDays(1).atStartOfDay()) : null;
+            String cursorTime = cursor != null && cursor.getCreateTime() != null
+                    ? new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(cursor.getCreateTime()) : null;
+            
+            List<InvoiceListVO> items = new ArrayList<>(pageSize);
+            for (InvoiceListVO row : rows) {
+                if (cursor != null && !isAfterCursor(row, cursor, cursorTime)) {
+                    continue;
+                }
+                if (request.getInvoiceType() != null && !request.getInvoiceType().equals(row.getInvoiceType())) {
+                    continue;
+                }
+                if (request.getStatus() != null && !request.getStatus().equals(row.getStatus())) {
+                    continue;
+                }
+                String createTime = row.getCreateTime();
+                if (from != null && (createTime == null || createTime.compareTo(from) < 0)) {
+                    continue;
+                }
+                if (to != null && (createTime == null || createTime.compareTo(to) > 0)) {
+                    continue;
+                }
+                if (items.size() == pageSize) {
+                    // 还有符合条件的数据，生成下一页游标
+                    InvoiceListVO last = items.get(pageSize - 1);
+                    return new CursorPage<>(items, new InvoiceListCursor(toDate(last.getCreateTime()), last.getRcptNo()).encode());
+                }
+                items.add(row);
+            }
+            return new CursorPage<>(items, null);
+        }
+        
+        /**
+         * 与 InvoiceListQueryBuilder 中SQL相同的键集规则
+         */
+        private static boolean isAfterCursor(InvoiceListVO row, InvoiceListCursor cursor, String cursorTime) {
+            String createTime = row.getCreateTime();
+            if (cursorTime == null) {
+                return createTime != null || row.getRcptNo().compareTo(cursor.getRcptNo()) > 0;
+            }
+            if (createTime == null) {
+                return false;
+            }
+            int compare = createTime.compareTo(cursorTime);
+            return compare < 0 || (compare == 0 && row.getRcptNo().compareTo(cursor.getRcptNo()) > 0);
+        }
+        
+        private static Date toDate(String createTime) {
+            return createTime != null ? Timestamp.valueOf(LocalDateTime.parse(createTime, TIME_FORMATTER)) : null;
+        }
+    }
+}
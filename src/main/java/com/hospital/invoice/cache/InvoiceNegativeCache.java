@@ -0,0 +1,237 @@
+package com.hospital.invoice.cache;
+
+import com.hospital.invoice.enums.DetailLookupResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发票否定查询缓存（进程内）
+ * 
+ * 缓存 发票ID + 患者ID -> 查询失败原因（NOT_FOUND / FORBIDDEN），以及 收据号 + 患者ID -> 查询失败原因，
+ * 权限校验先查此缓存，命中时直接拒绝，不再访问数据库。
+ * 用于挡住爬虫、拼错的链接对同一张不存在或不属于该患者的发票反复请求。
+ * 
+ * 说明：
+ * 1. 过期时间很短：新开的发票最多在过期时间内查不到，也可通过 InvoiceCacheService 立即失效
+ * 2. 按条数限制容量（LRU淘汰），超长的参数不缓存，扫描大量不同发票ID时占用内存有上限
+ * 3. 按发票ID查询时无法区分“不存在”和“属于其他患者”（查询条件带患者ID），统一记为 NOT_FOUND；
+ *    批量查询和按收据号查询能够区分，记录实际原因
+ */
+@Component
+public class InvoiceNegativeCache {
+    
+    /**
+     * 缓存key各部分的分隔符（不会出现在正常参数中）
+     */
+    private static final char KEY_SEPARATOR = '\u0001';
+    
+    /**
+     * 参与缓存的参数最大长度，超过的不缓存（正常发票ID、收据号、患者ID都远小于此长度）
+     */
+    private static final int MAX_ID_LENGTH = 64;
+    
+    /**
+     * 是否启用缓存
+     */
+    @Value("${invoice.cache.negative.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 过期时间（秒）
+     */
+    @Value("${invoice.cache.negative.ttl-seconds:10}")
+    private long ttlSeconds;
+    
+    /**
+     * 最多缓存的条数
+     */
+    @Value("${invoice.cache.negative.max-entries:20000}")
+    private int maxEntries;
+    
+    /**
+     * 发票ID + 患者ID -> 查询失败原因
+     */
+    private RemovableLRUCache<String, DetailLookupResult> invoices;
+    
+    /**
+     * 收据号 + 患者ID -> 查询失败原因
+     */
+    private RemovableLRUCache<String, DetailLookupResult> receipts;
+    
+    // 统计指标
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notFoundPuts = new LongAdder();
+    private final LongAdder forbiddenPuts = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        this.invoices = new RemovableLRUCache<>(maxEntries, ttlSeconds * 1000);
+        this.receipts = new RemovableLRUCache<>(maxEntries, ttlSeconds * 1000);
+    }
+    
+    /**
+     * 查询发票是否已知查不到
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @return 命中返回失败原因，未命中（或未启用）返回null
+     */
+    public DetailLookupResult get(String invoiceId, String patientId) {
+        return lookup(invoices, invoiceId, patientId);
+    }
+    
+    /**
+     * 按收据号查询是否已知查不到
+     * 
+     * @param rcptNo 收据号
+     * @param patientId 患者ID
+     * @return 命中返回失败原因，未命中（或未启用）返回null
+     */
+    public DetailLookupResult getByRcptNo(String rcptNo, String patientId) {
+        return lookup(receipts, rcptNo, patientId);
+    }
+    
+    /**
+     * 记录查不到的发票
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @param result 失败原因（NOT_FOUND 或 FORBIDDEN）
+     */
+    public void put(String invoiceId, String patientId, DetailLookupResult result) {
+        store(invoices, invoiceId, patientId, result);
+    }
+    
+    /**
+     * 按收据号记录查不到的发票
+     * 
+     * @param rcptNo 收据号
+     * @param patientId 患者ID
+     * @param result 失败原因（NOT_FOUND 或 FORBIDDEN）
+     */
+    public void putByRcptNo(String rcptNo, String patientId, DetailLookupResult result) {
+        store(receipts, rcptNo, patientId, result);
+    }
+    
+    /**
+     * 使某张发票的记录失效（发票刚开出或归属变化后调用）
+     * 
+     * @param invoiceId 发票ID
+     */
+    public void invalidateInvoice(String invoiceId) {
+        if (invoiceId == null) {
+            return;
+        }
+        invalidations.increment();
+        String prefix = invoiceId + KEY_SEPARATOR;
+        invoices.removeIf((key, result) -> key.startsWith(prefix));
+    }
+    
+    /**
+     * 使某张收据的记录失效
+     * 
+     * @param rcptNo 收据号
+     */
+    public void invalidateReceipt(String rcptNo) {
+        if (rcptNo == null) {
+            return;
+        }
+        invalidations.increment();
+        String prefix = rcptNo + KEY_SEPARATOR;
+        receipts.removeIf((key, result) -> key.startsWith(prefix));
+    }
+    
+    /**
+     * 使某患者的全部记录失效
+     * 
+     * @param patientId 患者ID
+     */
+    public void invalidatePatient(String patientId) {
+        if (patientId == null) {
+            return;
+        }
+        invalidations.increment();
+        String suffix = KEY_SEPARATOR + patientId;
+        invoices.removeIf((key, result) -> key.endsWith(suffix));
+        receipts.removeIf((key, result) -> key.endsWith(suffix));
+    }
+    
+    /**
+     * 清空全部记录
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        invoices.clear();
+        receipts.clear();
+    }
+    
+    /**
+     * 缓存统计指标
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    public Map<String, Object> stats() {
+        long total = hits.sum() + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", total > 0 ? (double) hits.sum() / total : 0.0);
+        stats.put("notFoundPuts", notFoundPuts.sum());
+        stats.put("forbiddenPuts", forbiddenPuts.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("size", invoices.size());
+        stats.put("receiptSize", receipts.size());
+        stats.put("capacity", maxEntries);
+        return stats;
+    }
+    
+    private DetailLookupResult lookup(RemovableLRUCache<String, DetailLookupResult> cache, String id, String patientId) {
+        if (!enabled || !cacheable(id, patientId)) {
+            return null;
+        }
+        DetailLookupResult result = cache.get(key(id, patientId), false);
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+    
+    private void store(RemovableLRUCache<String, DetailLookupResult> cache, String id, String patientId,
+                       DetailLookupResult result) {
+        if (!enabled || result == null || result == DetailLookupResult.OK) {
+            return;
+        }
+        if (!cacheable(id, patientId)) {
+            skipped.increment();
+            return;
+        }
+        if (result == DetailLookupResult.FORBIDDEN) {
+            forbiddenPuts.increment();
+        } else {
+            notFoundPuts.increment();
+        }
+        cache.put(key(id, patientId), result);
+    }
+    
+    private static boolean cacheable(String id, String patientId) {
+        return id != null && patientId != null
+                && id.length() <= MAX_ID_LENGTH && patientId.length() <= MAX_ID_LENGTH;
+    }
+    
+    private static String key(String id, String patientId) {
+        return id + KEY_SEPARATOR + patientId;
+    }
+}
@@ -0,0 +1,360 @@
+package com.hospital.invoice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 发票归属索引（进程内）
+ * 保存 发票ID -> 患者ID 的对应关系，权限校验时先查内存，只有索引中没有的发票才访问数据库
+ * 
+ * 存储方式：
+ * 1. 开放寻址哈希表，发票ID和患者ID都以64位哈希值存放在两个 long[] 中，不创建任何包装对象
+ *    每张发票占16字节（按装载因子0.75计，100万张发票约32MB）
+ * 2. 哈希值为0表示空槽位，真实哈希为0时替换为1
+ * 
+ * 数据维护：
+ * 1. 启动后由定时任务首次执行全量加载，之后按 CREATE_TIME 增量加载新发票
+ *    （水位线回退一段重叠时间，避免漏掉提交较晚的记录）
+ * 2. 数据库校验通过的结果也会写入索引（如开票时间早于水位线、增量加载未覆盖的发票）
+ * 3. 发票归属不会改变，索引只增不删
+ * 
+ * 说明：
+ * 1. 索引只用于提前拒绝（OTHER_OWNER），OWNER 不能作为授权依据：授权仍由详情缓存或
+ *    按 发票ID + 患者ID 的数据库查询确认，即使哈希碰撞导致误判为属于该患者，也查不到其他患者的数据
+ * 2. 64位哈希碰撞导致误判为“不属于该患者”的概率可以忽略（千万级发票约百万分之一）
+ */
+@Component
+public class InvoiceOwnershipIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(InvoiceOwnershipIndex.class);
+    
+    private static final String LOAD_SQL =
+            "SELECT INVOICE_ID, PATIENT_ID, CREATE_TIME FROM COMM.INVOICE_DETAIL_VIEW WHERE INVOICE_ID IS NOT NULL";
+    
+    private static final String INCREMENTAL_SQL = LOAD_SQL + " AND CREATE_TIME >= CAST(? AS DATE)";
+    
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    
+    /**
+     * 查询结果
+     */
+    public enum Ownership {
+        /**
+         * 发票属于该患者
+         */
+        OWNER,
+        
+        /**
+         * 发票属于其他患者
+         */
+        OTHER_OWNER,
+        
+        /**
+         * 索引中没有该发票（或索引未启用、尚未加载完成），需要查询数据库
+         */
+        UNKNOWN
+    }
+    
+    /**
+     * 是否启用索引
+     */
+    @Value("${invoice.ownership-index.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 增量加载时水位线回退的重叠时间（秒）
+     */
+    @Value("${invoice.ownership-index.overlap-seconds:300}")
+    private long overlapSeconds;
+    
+    /**
+     * 加载时每次从数据库获取的行数
+     */
+    @Value("${invoice.ownership-index.fetch-size:5000}")
+    private int fetchSize;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // 哈希表（读写由 lock 保护）
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int size;
+    
+    /**
+     * 全量加载是否已完成
+     */
+    private volatile boolean loaded;
+    
+    /**
+     * 已加载记录的最大 CREATE_TIME（增量加载的水位线）
+     */
+    private volatile Timestamp watermark;
+    
+    private volatile long lastRefreshMillis;
+    
+    // 统计指标
+    private final LongAdder owners = new LongAdder();
+    private final LongAdder otherOwners = new LongAdder();
+    private final LongAdder unknowns = new LongAdder();
+    private final LongAdder learned = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    
+    /**
+     * 查询发票是否属于该患者
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @return 查询结果，UNKNOWN 时需要查询数据库
+     */
+    public Ownership lookup(String invoiceId, String patientId) {
+        if (!enabled || !loaded || invoiceId == null || patientId == null) {
+            unknowns.increment();
+            return Ownership.UNKNOWN;
+        }
+        long key = hash(invoiceId);
+        long owner;
+        lock.readLock().lock();
+        try {
+            owner = get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (owner == 0) {
+            unknowns.increment();
+            return Ownership.UNKNOWN;
+        }
+        if (owner == hash(patientId)) {
+            owners.increment();
+            return Ownership.OWNER;
+        }
+        otherOwners.increment();
+        return Ownership.OTHER_OWNER;
+    }
+    
+    /**
+     * 记录数据库校验通过的发票归属
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     */
+    public void record(String invoiceId, String patientId) {
+        if (!enabled || invoiceId == null || patientId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (put(hash(invoiceId), hash(patientId))) {
+                learned.increment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 定时刷新：首次全量加载，之后按 CREATE_TIME 增量加载
+     */
+    @Scheduled(fixedDelayString = "${invoice.ownership-index.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int rows;
+            if (!loaded) {
+                rows = load(LOAD_SQL, null);
+                loaded = true;
+                log.info("发票归属索引全量加载完成：{}条，耗时{}ms", rows, System.currentTimeMillis() - start);
+            } else {
+                Timestamp since = watermark != null
+                        ? new Timestamp(watermark.getTime() - overlapSeconds * 1000) : new Timestamp(0);
+                rows = load(INCREMENTAL_SQL, since);
+                log.debug("发票归属索引增量加载：{}条，耗时{}ms", rows, System.currentTimeMillis() - start);
+            }
+            lastRefreshMillis = System.currentTimeMillis();
+        } catch (Exception e) {
+            refreshFailures.increment();
+            log.warn("发票归属索引加载失败，下次定时任务重试 - {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 索引统计指标
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    public Map<String, Object> stats() {
+        int currentSize;
+        int capacity;
+        lock.readLock().lock();
+        try {
+            currentSize = size;
+            capacity = keys.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+        long total = owners.sum() + otherOwners.sum() + unknowns.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("size", currentSize);
+        stats.put("capacity", capacity);
+        stats.put("memoryBytes", (long) capacity * 16);
+        stats.put("watermark", watermark != null ? watermark.toString() : null);
+        stats.put("lastRefreshMillis", lastRefreshMillis);
+        stats.put("owners", owners.sum());
+        stats.put("otherOwners", otherOwners.sum());
+        stats.put("unknowns", unknowns.sum());
+        stats.put("hitRatio", total > 0 ? (double) (owners.sum() + otherOwners.sum()) / total : 0.0);
+        stats.put("learned", learned.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        return stats;
+    }
+    
+    /**
+     * 流式读取发票归属并写入索引
+     * 
+     * @return 读取的行数
+     */
+    private int load(String sql, Timestamp since) {
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (since != null) {
+                ps.setTimestamp(1, since);
+            }
+            return ps;
+        };
+        int[] rows = {0};
+        Timestamp[] maxCreateTime = {watermark};
+        RowCallbackHandler handler = rs -> {
+            long key = hash(rs.getString("INVOICE_ID"));
+            long value = hash(rs.getString("PATIENT_ID"));
+            Timestamp createTime = rs.getTimestamp("CREATE_TIME");
+            if (createTime != null && (maxCreateTime[0] == null || createTime.after(maxCreateTime[0]))) {
+                maxCreateTime[0] = createTime;
+            }
+            // 每行单独加锁，加载期间不阻塞请求线程的查询
+            lock.writeLock().lock();
+            try {
+                put(key, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rows[0]++;
+        };
+        jdbcTemplate.query(statementCreator, handler);
+        watermark = maxCreateTime[0];
+        return rows[0];
+    }
+    
+    /**
+     * 查找发票ID哈希对应的患者ID哈希（调用方持有读锁）
+     * 
+     * @return 患者ID哈希，不存在返回0
+     */
+    private long get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == 0) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * 写入发票归属（调用方持有写锁）
+     * 
+     * @return true-新增，false-已存在
+     */
+    private boolean put(long key, long value) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == 0) {
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+                return true;
+            }
+            if (current == key) {
+                values[slot] = value;
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * 容量翻倍并重新散列
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length << 1];
+        values = new long[oldValues.length << 1];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) {
+                continue;
+            }
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+    
+    /**
+     * 字符串的64位哈希（FNV-1a + 混淆），结果不为0
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+    
+    /**
+     * 由64位哈希得到槽位下标
+     */
+    private static int mix(long key) {
+        return (int) (key ^ (key >>> 32));
+    }
+}
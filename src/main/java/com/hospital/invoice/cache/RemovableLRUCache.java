@@ -0,0 +1,63 @@
+package com.hospital.invoice.cache;
+
+import cn.hutool.cache.impl.CacheObj;
+import cn.hutool.cache.impl.LRUCache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * 支持按条件批量删除的LRU缓存
+ * 
+ * 说明：
+ * 1. Hutool LRUCache 的底层是按访问顺序排列的 LinkedHashMap，get 也会修改链表；
+ *    keySet() 在不加锁的情况下复制键集合，与并发的 get/put 同时执行会抛出 ConcurrentModificationException
+ * 2. removeIf 在缓存自身的锁内遍历并删除，与 get/put 互斥；遍历期间读写请求短暂等待，
+ *    失效操作（按发票、收据、患者）远少于读写，且只在缓存条目数范围内遍历一次
+ * 
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class RemovableLRUCache<K, V> extends LRUCache<K, V> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 构造函数
+     * @param capacity 最大条目数
+     * @param timeout 默认过期时间（毫秒），0表示不过期
+     */
+    public RemovableLRUCache(int capacity, long timeout) {
+        super(capacity, timeout);
+    }
+    
+    /**
+     * 删除满足条件的全部条目（包括已过期尚未清理的条目）
+     * 
+     * @param predicate 条件（键, 值）
+     * @return 删除的条目数
+     */
+    public int removeIf(BiPredicate<K, V> predicate) {
+        List<CacheObj<K, V>> removed = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<CacheObj<K, V>> iterator = cacheMap.values().iterator();
+            while (iterator.hasNext()) {
+                CacheObj<K, V> entry = iterator.next();
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    iterator.remove();
+                    removed.add(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // 与 remove 一致，在锁外通知监听器
+        for (CacheObj<K, V> entry : removed) {
+            onRemove(entry.getKey(), entry.getValue());
+        }
+        return removed.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.hospital.invoice.cache;
+
+import com.hospital.invoice.entity.view.InvoiceDetailCoreView;
+import com.hospital.invoice.entity.view.InvoiceDetailView;
+import com.hospital.invoice.entity.view.InvoiceListView;
+import com.hospital.invoice.entity.view.InvoiceListViewSimple;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate 二级缓存统计与失效
+ * 供运维管理接口查询各区域命中情况、在发票数据变化后清除区域
+ * 
+ * 说明：
+ * 1. 统计数据来自 Hibernate Statistics，需开启 hibernate.generate_statistics
+ * 2. 发票详情实体以收据号为主键，按发票ID失效时只能清空整个详情区域
+ */
+@Component
+public class SecondLevelCacheStats {
+    
+    private static final String[] ENTITY_REGIONS = {
+            CacheRegions.DETAIL_VIEW, CacheRegions.DETAIL_CORE_VIEW, CacheRegions.LIST_VIEW,
+            CacheRegions.LIST_VIEW_SIMPLE
+    };
+    
+    private static final String[] QUERY_REGIONS = {
+            CacheRegions.DETAIL_QUERY, CacheRegions.LIST_QUERY
+    };
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    /**
+     * 二级缓存统计指标
+     * 
+     * @return 指标名称 -> 指标值（regions 下为各区域的命中、未命中、写入次数，尚未使用的查询区域为空）
+     */
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory().getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        stats.put("entityHits", statistics.getSecondLevelCacheHitCount());
+        stats.put("entityMisses", statistics.getSecondLevelCacheMissCount());
+        stats.put("entityPuts", statistics.getSecondLevelCachePutCount());
+        stats.put("queryHits", statistics.getQueryCacheHitCount());
+        stats.put("queryMisses", statistics.getQueryCacheMissCount());
+        stats.put("queryPuts", statistics.getQueryCachePutCount());
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : ENTITY_REGIONS) {
+            regions.put(region, regionStats(statistics.getDomainDataRegionStatistics(region)));
+        }
+        for (String region : QUERY_REGIONS) {
+            regions.put(region, regionStats(statistics.getQueryRegionStatistics(region)));
+        }
+        stats.put("regions", regions);
+        return stats;
+    }
+    
+    /**
+     * 清除发票详情实体及详情查询结果
+     */
+    public void evictDetails() {
+        Cache cache = sessionFactory().getCache();
+        cache.evictEntityData(InvoiceDetailView.class);
+        cache.evictEntityData(InvoiceDetailCoreView.class);
+        cache.evictQueryRegion(CacheRegions.DETAIL_QUERY);
+    }
+    
+    /**
+     * 清除指定收据号的发票详情实体及详情查询结果
+     * 
+     * @param rcptNo 收据号
+     */
+    public void evictReceipt(String rcptNo) {
+        Cache cache = sessionFactory().getCache();
+        cache.evictEntityData(InvoiceDetailView.class, rcptNo);
+        cache.evictEntityData(InvoiceDetailCoreView.class, rcptNo);
+        cache.evictQueryRegion(CacheRegions.DETAIL_QUERY);
+    }
+    
+    /**
+     * 清除发票列表实体及列表查询结果
+     */
+    public void evictLists() {
+        Cache cache = sessionFactory().getCache();
+        cache.evictEntityData(InvoiceListView.class);
+        cache.evictEntityData(InvoiceListViewSimple.class);
+        cache.evictQueryRegion(CacheRegions.LIST_QUERY);
+    }
+    
+    /**
+     * 清空全部二级缓存区域
+     */
+    public void evictAll() {
+        sessionFactory().getCache().evictAllRegions();
+    }
+    
+    private Map<String, Object> regionStats(CacheRegionStatistics regionStatistics) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (regionStatistics == null) {
+            return stats;
+        }
+        long hits = regionStatistics.getHitCount();
+        long misses = regionStatistics.getMissCount();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("puts", regionStatistics.getPutCount());
+        stats.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        // JCache 不提供条目数，此时 Hibernate 返回负数
+        long size = regionStatistics.getElementCountInMemory();
+        stats.put("size", size >= 0 ? size : null);
+        return stats;
+    }
+    
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
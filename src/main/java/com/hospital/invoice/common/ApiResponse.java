@@ -1,5 +1,9 @@
 package com.hospital.invoice.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
 /**
  * 统一API响应格式类
  * 所有接口都使用此格式返回数据，确保前后端数据交互的一致性
@@ -26,6 +30,13 @@ public class ApiResponse<T> {
      */
     private T data;
     
+    /**
+     * 下一页游标（仅分页接口返回）
+     * 不透明字符串，前端原样回传即可获取下一页；为null时表示没有更多数据，且不输出该字段
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    
     /**
      * 无参构造函数
      */
@@ -65,6 +76,19 @@ public class ApiResponse<T> {
         return new ApiResponse<>(200, message, data);
     }
     
+    /**
+     * 创建成功响应（游标分页）
+     * @param message 响应消息
+     * @param page 分页结果
+     * @param <T> 列表元素类型
+     * @return 成功响应对象，data为当前页数据，nextCursor为下一页游标
+     */
+    public static <T> ApiResponse<List<T>> successPage(String message, CursorPage<T> page) {
+        ApiResponse<List<T>> response = new ApiResponse<>(200, message, page.getItems());
+        response.setNextCursor(page.getNextCursor());
+        return response;
+    }
+    
     /**
      * 创建失败响应
      * @param code 错误码
@@ -111,6 +135,14 @@ public class ApiResponse<T> {
     public void setData(T data) {
         this.data = data;
     }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
 
 
@@ -0,0 +1,40 @@
+package com.hospital.invoice.common;
+
+/**
+ * 业务异常
+ * 用于发票不存在、无权访问、PDF文件不存在等可预期的业务结果，由 GlobalExceptionHandler 统一转换为 ApiResponse
+ * 
+ * 说明：
+ * 不采集堆栈，也不打印日志：业务结果不需要堆栈，恶意请求较多时采集堆栈和输出日志的开销明显
+ */
+public class BusinessException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 错误码（ApiResponse 中的 code）
+     */
+    private final Integer code;
+    
+    /**
+     * 构造函数
+     * @param code 错误码
+     * @param message 错误信息
+     */
+    public BusinessException(Integer code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+    
+    /**
+     * 发票不存在或无权访问
+     * @return 业务异常（错误码403）
+     */
+    public static BusinessException accessDenied() {
+        return new BusinessException(403, "发票不存在或无权访问");
+    }
+    
+    public Integer getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,51 @@
+package com.hospital.invoice.common;
+
+import java.util.List;
+
+/**
+ * 游标分页结果类
+ * 用于键集（seek）分页：只返回当前页数据和下一页游标，不统计总数
+ * 
+ * @param <T> 列表元素的类型
+ */
+public class CursorPage<T> {
+    
+    /**
+     * 当前页数据
+     */
+    private final List<T> items;
+    
+    /**
+     * 下一页游标
+     * 为null表示没有更多数据
+     */
+    private final String nextCursor;
+    
+    /**
+     * 全参构造函数
+     * @param items 当前页数据
+     * @param nextCursor 下一页游标（没有更多数据时为null）
+     */
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getter 方法
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    /**
+     * 是否还有下一页
+     * @return true-有，false-没有
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
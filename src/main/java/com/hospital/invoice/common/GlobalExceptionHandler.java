@@ -0,0 +1,88 @@
+package com.hospital.invoice.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 全局异常处理
+ * 控制器不再逐个捕获异常，统一在这里转换为 ApiResponse
+ * 
+ * 转换规则：
+ * 1. BusinessException：使用异常中的错误码，不打印日志；RetryLaterException 另外带 Retry-After 响应头
+ *    参数不合法（如分页游标、批量查询个数）同样抛出 BusinessException，错误码400
+ * 2. Spring MVC 标准异常（缺少参数、请求体无法解析等）：保持框架默认的HTTP状态码，错误码与HTTP状态码相同
+ * 3. 其他异常（包括意外的 IllegalArgumentException）：系统错误，记录错误日志（含堆栈），错误码500
+ * 
+ * 说明：
+ * 返回 ApiResponse 的接口HTTP状态码保持200（错误码在响应体中）；
+ * 返回 ResponseEntity 的接口（如下载）使用与错误码对应的HTTP状态码
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    
+    /**
+     * 错误响应的内容类型（明确声明UTF-8，避免中文乱码）
+     */
+    private static final MediaType JSON_UTF8 = new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8);
+    
+    @ExceptionHandler(BusinessException.class)
+    public ResponseEntity<Object> handleBusinessException(BusinessException e, HandlerMethod handlerMethod) {
+        HttpStatus status = HttpStatus.resolve(e.getCode());
+        return respond(handlerMethod, status != null ? status : HttpStatus.INTERNAL_SERVER_ERROR,
+                e.getCode(), e.getMessage());
+    }
+    
+    @ExceptionHandler(RetryLaterException.class)
+    public ResponseEntity<Object> handleRetryLater(RetryLaterException e, HandlerMethod handlerMethod) {
+        ResponseEntity<Object> response = handleBusinessException(e, handlerMethod);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+    
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleException(Exception e, HandlerMethod handlerMethod,
+                                                  HttpServletRequest request) {
+        log.error("请求处理失败：{}", request.getRequestURI(), e);
+        return respond(handlerMethod, HttpStatus.INTERNAL_SERVER_ERROR, 500, "处理失败：" + e.getMessage());
+    }
+    
+    /**
+     * Spring MVC 标准异常的响应体同样使用 ApiResponse 格式
+     */
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+                                                             HttpStatus status, WebRequest request) {
+        HttpHeaders jsonHeaders = new HttpHeaders();
+        jsonHeaders.putAll(headers);
+        jsonHeaders.setContentType(JSON_UTF8);
+        return new ResponseEntity<>(ApiResponse.error(status.value(), ex.getMessage()), jsonHeaders, status);
+    }
+    
+    /**
+     * 返回 ResponseEntity 的接口使用指定的HTTP状态码，其余接口为200
+     */
+    private static ResponseEntity<Object> respond(HandlerMethod handlerMethod, HttpStatus status,
+                                                  Integer code, String message) {
+        boolean entityResponse = handlerMethod != null
+                && ResponseEntity.class.isAssignableFrom(handlerMethod.getMethod().getReturnType());
+        return ResponseEntity.status(entityResponse ? status : HttpStatus.OK)
+                .contentType(JSON_UTF8)
+                .body(ApiResponse.error(code, message));
+    }
+}
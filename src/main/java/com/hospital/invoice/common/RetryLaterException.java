@@ -0,0 +1,30 @@
+package com.hospital.invoice.common;
+
+/**
+ * 服务繁忙，稍后重试
+ * 由 GlobalExceptionHandler 转换为 ApiResponse，并在响应头中带上 Retry-After（秒）
+ */
+public class RetryLaterException extends BusinessException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * 建议的重试间隔（秒）
+     */
+    private final long retryAfterSeconds;
+    
+    /**
+     * 构造函数
+     * @param code 错误码
+     * @param message 错误信息
+     * @param retryAfterSeconds 建议的重试间隔（秒）
+     */
+    public RetryLaterException(Integer code, String message, long retryAfterSeconds) {
+        super(code, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
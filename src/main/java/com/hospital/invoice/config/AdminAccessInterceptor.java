@@ -0,0 +1,81 @@
+package com.hospital.invoice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.invoice.common.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 运维管理接口访问校验
+ * /api/admin/** 的请求必须在请求头 X-Admin-Token 中携带配置的令牌，否则返回401
+ * 
+ * 说明：
+ * 1. 管理接口可查看患者样例数据、清空缓存、执行数据库基准测试，不能只依赖网关或防火墙限制来源
+ * 2. 未配置令牌（invoice.admin.token 为空）时拒绝所有管理请求（403），避免误开启后无保护地暴露
+ * 3. 令牌按常量时间比较，不因比较耗时泄露令牌内容
+ */
+@Component
+@ConditionalOnProperty(prefix = "invoice.admin", name = "enabled", havingValue = "true")
+public class AdminAccessInterceptor implements HandlerInterceptor {
+    
+    private static final Logger log = LoggerFactory.getLogger(AdminAccessInterceptor.class);
+    
+    /**
+     * 携带管理令牌的请求头
+     */
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+    
+    /**
+     * 管理接口访问令牌（建议通过环境变量 INVOICE_ADMIN_TOKEN 注入，不写入配置文件）
+     */
+    @Value("${invoice.admin.token:}")
+    private String token;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private byte[] expected;
+    
+    @PostConstruct
+    public void init() {
+        if (token == null || token.trim().isEmpty()) {
+            log.warn("运维管理接口已开启，但未配置 invoice.admin.token，所有管理请求将被拒绝");
+            return;
+        }
+        expected = token.trim().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (expected == null) {
+            reject(response, HttpStatus.FORBIDDEN, "运维管理接口未配置访问令牌");
+            return false;
+        }
+        String provided = request.getHeader(TOKEN_HEADER);
+        if (provided == null || !MessageDigest.isEqual(expected, provided.trim().getBytes(StandardCharsets.UTF_8))) {
+            log.warn("运维管理接口令牌校验失败：{} {}", request.getRequestURI(), request.getRemoteAddr());
+            reject(response, HttpStatus.UNAUTHORIZED, "运维管理接口访问令牌无效");
+            return false;
+        }
+        return true;
+    }
+    
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws Exception {
+        response.setStatus(status.value());
+        response.setContentType("application/json;charset=UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(status.value(), message));
+    }
+}
@@ -0,0 +1,108 @@
+package com.hospital.invoice.config;
+
+import com.hospital.invoice.cache.CacheRegions;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+
+/**
+ * Hibernate 二级缓存配置
+ * 视图实体都是只读的（@Immutable），使用 READ_ONLY 策略缓存，查询缓存用于 Repository 上的派生查询
+ * 
+ * 说明：
+ * 1. 缓存实现为 Ehcache 3（JCache），每个区域的条数上限和过期时间由 invoice.cache.l2.* 配置
+ * 2. 视图数据由HIS系统写入，Hibernate 感知不到数据变化（查询缓存不会因表更新而失效），
+ *    区域只能依靠过期时间保证数据新鲜度，需要立即生效时调用 InvoiceCacheService（或 /api/admin/cache/invalidate）
+ * 3. 区域由这里统一创建，Hibernate 遇到未创建的区域直接启动失败，避免按默认配置创建出无上限的缓存
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    
+    /**
+     * 发票详情实体区域（完整字段、核心字段各一个区域，使用相同配置）：条数上限、过期时间（秒）
+     */
+    @Value("${invoice.cache.l2.detail-view.max-entries:20000}")
+    private long detailViewMaxEntries;
+    
+    @Value("${invoice.cache.l2.detail-view.ttl-seconds:30}")
+    private long detailViewTtlSeconds;
+    
+    /**
+     * 发票列表实体区域：条数上限、过期时间（秒）
+     */
+    @Value("${invoice.cache.l2.list-view.max-entries:50000}")
+    private long listViewMaxEntries;
+    
+    @Value("${invoice.cache.l2.list-view.ttl-seconds:60}")
+    private long listViewTtlSeconds;
+    
+    /**
+     * 查询结果区域：条数上限、过期时间（秒），详情查询和列表查询各一个区域，使用相同配置
+     */
+    @Value("${invoice.cache.l2.query.max-entries:5000}")
+    private long queryMaxEntries;
+    
+    @Value("${invoice.cache.l2.query.ttl-seconds:30}")
+    private long queryTtlSeconds;
+    
+    /**
+     * 二级缓存使用的 JCache 缓存管理器
+     * 
+     * @return 已创建好全部区域的缓存管理器
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        createRegion(cacheManager, CacheRegions.DETAIL_VIEW, detailViewMaxEntries, detailViewTtlSeconds);
+        createRegion(cacheManager, CacheRegions.DETAIL_CORE_VIEW, detailViewMaxEntries, detailViewTtlSeconds);
+        createRegion(cacheManager, CacheRegions.LIST_VIEW, listViewMaxEntries, listViewTtlSeconds);
+        createRegion(cacheManager, CacheRegions.LIST_VIEW_SIMPLE, listViewMaxEntries, listViewTtlSeconds);
+        createRegion(cacheManager, CacheRegions.DETAIL_QUERY, queryMaxEntries, queryTtlSeconds);
+        createRegion(cacheManager, CacheRegions.LIST_QUERY, queryMaxEntries, queryTtlSeconds);
+        createRegion(cacheManager, CacheRegions.DEFAULT_QUERY, queryMaxEntries, queryTtlSeconds);
+        // 时间戳区域记录各表最后更新时间，不能早于查询结果过期，不设过期时间
+        createRegion(cacheManager, CacheRegions.UPDATE_TIMESTAMPS, 1000, 0);
+        return cacheManager;
+    }
+    
+    /**
+     * 将缓存管理器交给 Hibernate 使用
+     * 
+     * @param secondLevelCacheManager 二级缓存使用的缓存管理器
+     * @return Hibernate 配置定制器
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+    
+    /**
+     * 创建缓存区域
+     * 
+     * @param ttlSeconds 过期时间（秒），0表示不过期
+     */
+    private void createRegion(CacheManager cacheManager, String region, long maxEntries, long ttlSeconds) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+        if (ttlSeconds > 0) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)));
+        }
+        cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(builder));
+    }
+}
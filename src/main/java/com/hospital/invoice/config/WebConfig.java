@@ -1,8 +1,10 @@
 package com.hospital.invoice.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.nio.charset.StandardCharsets;
@@ -24,6 +26,12 @@ import java.util.List;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     
+    /**
+     * 运维管理接口访问校验（invoice.admin.enabled=true 时才存在）
+     */
+    @Autowired(required = false)
+    private AdminAccessInterceptor adminAccessInterceptor;
+    
     /**
      * 配置HTTP消息转换器
      * 设置字符串转换器使用UTF-8编码
@@ -41,6 +49,18 @@ public class WebConfig implements WebMvcConfigurer {
         // 将配置好的转换器添加到转换器列表的最前面（优先使用）
         converters.add(0, stringConverter);
     }
+    
+    /**
+     * 注册拦截器：运维管理接口必须携带访问令牌
+     * 
+     * @param registry 拦截器注册表
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (adminAccessInterceptor != null) {
+            registry.addInterceptor(adminAccessInterceptor).addPathPatterns("/api/admin/**");
+        }
+    }
 }
 
 
@@ -0,0 +1,202 @@
+package com.hospital.invoice.controller;
+
+import com.hospital.invoice.cache.InvoiceDetailCache;
+import com.hospital.invoice.cache.InvoiceListCache;
+import com.hospital.invoice.cache.InvoiceNegativeCache;
+import com.hospital.invoice.cache.InvoiceOwnershipIndex;
+import com.hospital.invoice.cache.SecondLevelCacheStats;
+import com.hospital.invoice.common.ApiResponse;
+import com.hospital.invoice.dto.response.ListReadBenchmarkVO;
+import com.hospital.invoice.dto.response.ViewSchemaVO;
+import com.hospital.invoice.pdf.PdfDiskCache;
+import com.hospital.invoice.pdf.PdfWorkerPool;
+import com.hospital.invoice.repository.InvoiceListQueryBuilder;
+import com.hospital.invoice.service.InvoiceCacheService;
+import com.hospital.invoice.service.InvoiceDiagnosticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运维管理控制器
+ * 提供诊断排查等管理类接口，不面向患者端
+ * 
+ * 注意：
+ * 1. 由配置 invoice.admin.enabled=true 开启，默认不注册
+ * 2. 接口不校验API网关参数，由 AdminAccessInterceptor 校验请求头 X-Admin-Token 中的访问令牌；
+ *    生产环境仍建议在网关或防火墙层面限制访问来源
+ */
+@RestController
+@RequestMapping("/api/admin")
+@ConditionalOnProperty(prefix = "invoice.admin", name = "enabled", havingValue = "true")
+public class AdminController {
+    
+    @Autowired
+    private InvoiceDiagnosticsService diagnosticsService;
+    
+    @Autowired
+    private InvoiceListCache invoiceListCache;
+    
+    @Autowired
+    private InvoiceDetailCache invoiceDetailCache;
+    
+    @Autowired
+    private InvoiceNegativeCache invoiceNegativeCache;
+    
+    @Autowired
+    private InvoiceOwnershipIndex invoiceOwnershipIndex;
+    
+    @Autowired
+    private SecondLevelCacheStats secondLevelCacheStats;
+    
+    @Autowired
+    private PdfDiskCache pdfDiskCache;
+    
+    @Autowired
+    private PdfWorkerPool pdfWorkerPool;
+    
+    @Autowired
+    private InvoiceListQueryBuilder invoiceListQueryBuilder;
+    
+    @Autowired
+    private InvoiceCacheService invoiceCacheService;
+    
+    /**
+     * 查询视图结构快照（启动时采集的缓存结果，不访问数据库）
+     * 接口路径：/api/admin/diagnostics/schema
+     * 
+     * @return 视图名称 -> 视图结构
+     */
+    @GetMapping(value = "/diagnostics/schema", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Map<String, ViewSchemaVO>> getSchemaSnapshot() {
+        return ApiResponse.success("查询成功", diagnosticsService.getSchemaSnapshot());
+    }
+    
+    /**
+     * 重新采集视图结构快照
+     * 接口路径：/api/admin/diagnostics/schema/refresh
+     * 
+     * @return 刷新后的视图结构快照
+     */
+    @PostMapping(value = "/diagnostics/schema/refresh", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Map<String, ViewSchemaVO>> refreshSchemaSnapshot() {
+        return ApiResponse.success("刷新成功", diagnosticsService.refreshSchemaSnapshot());
+    }
+    
+    /**
+     * 抽取样例数据（原始字段值及类型）
+     * 接口路径：/api/admin/diagnostics/sample
+     * 
+     * @param view 视图名称，默认 INVOICE_LIST_VIEW
+     * @param patientId 患者ID
+     * @param limit 行数，默认2，最大20
+     * @return 样例数据
+     */
+    @GetMapping(value = "/diagnostics/sample", produces = "application/json;charset=UTF-8")
+    public ApiResponse<List<Map<String, Object>>> sampleRows(
+            @RequestParam(defaultValue = "INVOICE_LIST_VIEW") String view,
+            @RequestParam String patientId,
+            @RequestParam(defaultValue = "2") int limit) {
+        try {
+            return ApiResponse.success("查询成功", diagnosticsService.sampleRows(view, patientId, limit));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+    
+    /**
+     * 发票列表读取方式基准测试（JPA实体 vs JDBC行映射）
+     * 接口路径：/api/admin/diagnostics/list-read-benchmark
+     * 
+     * 说明：会真实查询数据库，请选择数据量有代表性的患者，避免在业务高峰期执行
+     * 
+     * @param patientId 患者ID
+     * @param pageSize 每页条数，默认100
+     * @param iterations 每种方式执行次数，默认10，最大50
+     * @return 每种读取方式的平均/最短/最长耗时及内存分配量
+     */
+    @GetMapping(value = "/diagnostics/list-read-benchmark", produces = "application/json;charset=UTF-8")
+    public ApiResponse<List<ListReadBenchmarkVO>> benchmarkListRead(
+            @RequestParam String patientId,
+            @RequestParam(defaultValue = "100") int pageSize,
+            @RequestParam(defaultValue = "10") int iterations) {
+        try {
+            return ApiResponse.success("测试完成",
+                    diagnosticsService.benchmarkListRead(patientId, pageSize, iterations));
+        } catch (Exception e) {
+            return ApiResponse.error(500, "测试失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 发票列表SQL形状执行次数统计
+     * 接口路径：/api/admin/diagnostics/query-shapes
+     * 
+     * 说明：每种形状对应一条固定SQL文本，可据此核对数据库共享池中的游标数量
+     * 
+     * @return SQL形状 -> 执行次数
+     */
+    @GetMapping(value = "/diagnostics/query-shapes", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Map<String, Long>> getQueryShapeStats() {
+        return ApiResponse.success("查询成功", invoiceListQueryBuilder.executionCounts());
+    }
+    
+    /**
+     * 查询缓存统计指标（命中率、容量、失效次数等）
+     * 接口路径：/api/admin/cache/stats
+     * 
+     * @return 缓存名称 -> 统计指标
+     */
+    @GetMapping(value = "/cache/stats", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Map<String, Map<String, Object>>> getCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("invoiceList", invoiceListCache.stats());
+        stats.put("invoiceDetail", invoiceDetailCache.stats());
+        stats.put("negativeLookup", invoiceNegativeCache.stats());
+        stats.put("ownershipIndex", invoiceOwnershipIndex.stats());
+        stats.put("hibernateL2", secondLevelCacheStats.stats());
+        stats.put("pdfDisk", pdfDiskCache.stats());
+        return ApiResponse.success("查询成功", stats);
+    }
+    
+    /**
+     * PDF生成/下载线程池统计
+     * 接口路径：/api/admin/pdf/worker-stats
+     * 
+     * 说明：包括当前排队数（queueDepth）、拒绝次数、平均排队耗时和平均处理耗时
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    @GetMapping(value = "/pdf/worker-stats", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Map<String, Object>> getPdfWorkerStats() {
+        return ApiResponse.success("查询成功", pdfWorkerPool.stats());
+    }
+    
+    /**
+     * 使缓存失效
+     * 接口路径：/api/admin/cache/invalidate
+     * 
+     * 说明：
+     * 1. 手工处理用，写入方应直接调用 InvoiceCacheService（不依赖本控制器是否开启）
+     * 2. 清除范围见 InvoiceCacheService.invalidate；都不传时清空全部缓存（包括PDF磁盘缓存文件）
+     * 
+     * @param patientId 患者ID（可选）
+     * @param invoiceId 发票ID（可选）
+     * @param rcptNo 收据号（可选）
+     * @return 操作结果
+     */
+    @PostMapping(value = "/cache/invalidate", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Void> invalidateCache(@RequestParam(required = false) String patientId,
+                                             @RequestParam(required = false) String invoiceId,
+                                             @RequestParam(required = false) String rcptNo) {
+        if (!invoiceCacheService.invalidate(invoiceId, rcptNo, patientId)) {
+            invoiceCacheService.invalidateAll();
+            return ApiResponse.success("已清空全部缓存", null);
+        }
+        return ApiResponse.success("已清除缓存", null);
+    }
+}
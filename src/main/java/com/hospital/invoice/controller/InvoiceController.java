@@ -1,22 +1,45 @@
 package com.hospital.invoice.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hospital.invoice.common.ApiResponse;
+import com.hospital.invoice.common.BusinessException;
+import com.hospital.invoice.common.CursorPage;
+import com.hospital.invoice.dto.request.InvoiceDetailBatchRequest;
 import com.hospital.invoice.dto.request.InvoiceDetailRequest;
 import com.hospital.invoice.dto.request.InvoiceDownloadRequest;
+import com.hospital.invoice.dto.request.InvoiceLatestRequest;
 import com.hospital.invoice.dto.request.InvoiceListRequest;
+import com.hospital.invoice.dto.request.InvoiceSummaryRequest;
 import com.hospital.invoice.dto.request.SendEmailRequest;
+import com.hospital.invoice.dto.response.InvoiceDetailBatchItemVO;
 import com.hospital.invoice.dto.response.InvoiceDetailVO;
 import com.hospital.invoice.dto.response.InvoiceListVO;
+import com.hospital.invoice.dto.response.InvoiceSummaryVO;
 import com.hospital.invoice.dto.response.SendEmailVO;
+import com.hospital.invoice.pdf.InvoicePdf;
+import com.hospital.invoice.pdf.PdfStreamer;
+import com.hospital.invoice.service.InvoiceAccessResult;
 import com.hospital.invoice.service.InvoiceService;
+import com.hospital.invoice.util.ContentVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 发票控制器
@@ -26,12 +49,20 @@ import java.util.List;
  * 1. 所有接口需要在请求体中包含API网关验证参数：hospitalCode、hospitalName、tickets
  * 2. 所有接口需要在请求头中携带用户认证Token（Authorization: Bearer {token}）
  * 3. 实际使用时需要添加认证拦截器或过滤器来验证Token
+ * 4. 接口内不捕获异常，业务异常和系统异常统一由 GlobalExceptionHandler 转换为 ApiResponse
  */
 @RestController
 @RequestMapping("/api/invoice")
 @CrossOrigin // 支持跨域请求
 public class InvoiceController {
     
+    private static final Logger log = LoggerFactory.getLogger(InvoiceController.class);
+    
+    /**
+     * 流式输出时每写出多少条刷新一次响应缓冲区
+     */
+    private static final int STREAM_FLUSH_ROWS = 100;
+    
     /**
      * 注入发票服务
      * 注意：实际使用时需要有InvoiceService的实现类（如InvoiceServiceImpl）
@@ -39,6 +70,18 @@ public class InvoiceController {
     @Autowired
     private InvoiceService invoiceService;
     
+    /**
+     * Spring Boot 配置好的JSON序列化器（与普通接口的序列化规则一致）
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * PDF文件输出
+     */
+    @Autowired
+    private PdfStreamer pdfStreamer;
+    
     /**
      * 验证API网关必需参数
      * 
@@ -69,8 +112,13 @@ public class InvoiceController {
      * 接口路径：/api/invoice/list
      * 请求方式：GET 或 POST
      * 
+     * 分页说明：按开票时间倒序返回一页数据，响应中的 nextCursor 不为空时表示还有下一页，
+     * 将其作为 cursor 参数回传即可获取下一页
+     * 
+     * 条件请求：GET请求的响应带有 ETag，客户端轮询时携带 If-None-Match，数据未变化返回304（无响应体）
+     * 
      * @param request 查询条件请求对象
-     * @return 统一响应格式，包含发票列表数据
+     * @return 统一响应格式，包含当前页发票列表数据和下一页游标
      */
     @RequestMapping(value = "/list", method = {RequestMethod.GET, RequestMethod.POST}, 
                     produces = "application/json;charset=UTF-8")
@@ -82,45 +130,258 @@ public class InvoiceController {
             @RequestParam(required = false) String invoiceType,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) String hospitalCode,
+            @RequestParam(required = false) String hospitalName,
+            @RequestParam(required = false) String tickets,
+            WebRequest webRequest) throws Exception {
+        // 支持两种方式：POST的JSON body 或 GET的URL参数
+        InvoiceListRequest request = requestBody != null ? requestBody : new InvoiceListRequest();
+        
+        // 如果是GET请求，从URL参数设置
+        if (requestBody == null && patientId != null) {
+            request.setPatientId(patientId);
+            request.setPatientName(patientName);
+            request.setPhoneNumber(phoneNumber);
+            request.setInvoiceType(invoiceType);
+            request.setStatus(status);
+            request.setStartDate(startDate);
+            request.setEndDate(endDate);
+            request.setCursor(cursor);
+            request.setPageSize(pageSize);
+            request.setHospitalCode(hospitalCode);
+            request.setHospitalName(hospitalName);
+            request.setTickets(tickets);
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "发票列表查询");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
+        }
+        
+        // 参数校验：患者ID为必填项
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return ApiResponse.error(400, "患者ID不能为空");
+        }
+        
+        // 调用服务层方法查询发票列表
+        CursorPage<InvoiceListVO> page = invoiceService.getInvoiceList(request);
+        
+        // 数据未变化：返回304，不再序列化响应体
+        if (isConditionalGet(webRequest) && webRequest.checkNotModified(ContentVersion.forList(page))) {
+            return null;
+        }
+        
+        // 返回成功响应
+        return ApiResponse.successPage("查询成功", page);
+    }
+    
+    /**
+     * 1.1 多患者发票列表查询接口
+     * 接口路径：/api/invoice/list/batch
+     * 请求方式：POST
+     * 
+     * 说明：
+     * 1. 适用于监护人同时查看多个被监护人的发票，一次请求、一次数据库查询返回所有患者的第一页
+     * 2. 患者ID通过 patientIds 传入，数量有上限；其余筛选条件和 pageSize 对每个患者分别生效
+     * 3. 某个患者的 nextCursor 不为空时，通过 /list 按该患者单独继续翻页
+     * 
+     * @param request 查询条件请求对象
+     * @return 统一响应格式，data 为 患者ID -> 第一页发票及下一页游标
+     */
+    @PostMapping(value = "/list/batch", produces = "application/json;charset=UTF-8")
+    public ApiResponse<Map<String, CursorPage<InvoiceListVO>>> getInvoiceListBatch(
+            @RequestBody(required = false) InvoiceListRequest request) throws Exception {
+        // 请求对象为空检查
+        if (request == null) {
+            return ApiResponse.error(400, "请求参数不能为空");
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "多患者发票列表查询");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
+        }
+        
+        // 调用服务层方法查询（患者ID列表在服务层校验）
+        Map<String, CursorPage<InvoiceListVO>> pages = invoiceService.getInvoiceListBatch(request);
+        
+        // 返回成功响应
+        return ApiResponse.success("查询成功", pages);
+    }
+    
+    /**
+     * 1.2 发票列表流式查询接口
+     * 接口路径：/api/invoice/list/stream
+     * 请求方式：POST
+     * 
+     * 说明：
+     * 1. 查询条件与 /list 相同，但不分页，返回全部符合条件的发票（适用于长期住院、慢病患者或批量导出）
+     * 2. 响应格式与 /list 相同的JSON，但边查边写（分块传输）：数据库游标每读出一行就序列化写出，
+     *    内存占用与结果集大小无关，查询尚未结束时客户端即可收到数据
+     * 3. 响应头发出后如果查询出错，无法再修改状态码，会在JSON末尾追加 streamError 字段说明原因
+     * 
+     * @param request 查询条件请求对象
+     * @return 流式JSON响应
+     */
+    @PostMapping(value = "/list/stream", produces = "application/json;charset=UTF-8")
+    public ResponseEntity<StreamingResponseBody> streamInvoiceList(@RequestBody(required = false) InvoiceListRequest request) {
+        // 请求对象为空检查
+        if (request == null) {
+            return jsonResponse(ApiResponse.error(400, "请求参数不能为空"));
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "发票列表流式查询");
+        if (gatewayError != null) {
+            return jsonResponse(ApiResponse.error(400, gatewayError));
+        }
+        
+        // 参数校验：患者ID为必填项
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return jsonResponse(ApiResponse.error(400, "患者ID不能为空"));
+        }
+        
+        // 游标和日期格式在开始输出前校验，避免输出一半才发现参数错误
         try {
-            // 支持两种方式：POST的JSON body 或 GET的URL参数
-            InvoiceListRequest request = requestBody != null ? requestBody : new InvoiceListRequest();
-            
-            // 如果是GET请求，从URL参数设置
-            if (requestBody == null && patientId != null) {
-                request.setPatientId(patientId);
-                request.setPatientName(patientName);
-                request.setPhoneNumber(phoneNumber);
-                request.setInvoiceType(invoiceType);
-                request.setStatus(status);
-                request.setStartDate(startDate);
-                request.setEndDate(endDate);
-            }
-            
-            // API网关参数验证
-            String gatewayError = validateGatewayParams(request, "发票列表查询");
-            if (gatewayError != null) {
-                return ApiResponse.error(400, gatewayError);
-            }
+            invoiceService.validateListRequest(request);
+        } catch (BusinessException e) {
+            return jsonResponse(ApiResponse.error(e.getCode(), e.getMessage()));
+        }
+        
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8);
+            generator.writeStartObject();
+            generator.writeNumberField("code", 200);
+            generator.writeStringField("message", "查询成功");
+            generator.writeArrayFieldStart("data");
+            // 先把响应头和JSON开头发给客户端
+            generator.flush();
             
-            // 参数校验：患者ID为必填项
-            if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
-                return ApiResponse.error(400, "患者ID不能为空");
+            int[] rows = {0};
+            try {
+                invoiceService.streamInvoiceList(request, vo -> {
+                    try {
+                        generator.writeObject(vo);
+                        if (++rows[0] % STREAM_FLUSH_ROWS == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                // 客户端断开连接，无需继续输出
+                throw e.getCause();
+            } catch (Exception e) {
+                log.warn("发票列表流式输出中断：patientId={}, 已输出{}条 - {}",
+                        request.getPatientId(), rows[0], e.getMessage());
+                generator.writeEndArray();
+                generator.writeStringField("streamError", "查询中断：" + e.getMessage());
             }
-            
-            // 调用服务层方法查询发票列表
-            List<InvoiceListVO> invoiceList = invoiceService.getInvoiceList(request);
-            
-            // 返回成功响应
-            return ApiResponse.success("查询成功", invoiceList);
-            
-        } catch (Exception e) {
-            // 异常处理：记录日志并返回错误响应
-            // TODO: 添加日志记录
-            e.printStackTrace();
-            return ApiResponse.error(500, "查询失败：" + e.getMessage());
+            generator.writeEndObject();
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/json;charset=UTF-8"))
+                .body(body);
+    }
+    
+    /**
+     * 是否按条件请求处理（只对GET请求生成ETag、响应304；POST查询按普通请求处理）
+     */
+    private static boolean isConditionalGet(WebRequest webRequest) {
+        return webRequest instanceof ServletWebRequest
+                && "GET".equals(((ServletWebRequest) webRequest).getRequest().getMethod());
+    }
+    
+    /**
+     * 以流式响应的形式输出一个完整的JSON对象（用于流式接口的参数错误等提前返回）
+     */
+    private ResponseEntity<StreamingResponseBody> jsonResponse(ApiResponse<?> response) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/json;charset=UTF-8"))
+                .body(out -> objectMapper.writeValue(out, response));
+    }
+    
+    /**
+     * 1.3 发票汇总查询接口
+     * 接口路径：/api/invoice/summary
+     * 请求方式：GET 或 POST
+     * 
+     * 说明：按票据类型、发票状态、开票月份统计张数和金额合计，由数据库一次分组计算，
+     * 前端无需下载完整列表自行累加
+     * 
+     * @param request 查询请求对象，包含患者ID
+     * @return 统一响应格式，包含汇总数据
+     */
+    @RequestMapping(value = "/summary", method = {RequestMethod.GET, RequestMethod.POST},
+                    produces = "application/json;charset=UTF-8")
+    public ApiResponse<InvoiceSummaryVO> getInvoiceSummary(@RequestBody(required = false) InvoiceSummaryRequest request)
+            throws Exception {
+        // 请求对象为空检查
+        if (request == null) {
+            return ApiResponse.error(400, "请求参数不能为空");
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "发票汇总查询");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
+        }
+        
+        // 参数校验：患者ID为必填项
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return ApiResponse.error(400, "患者ID不能为空");
+        }
+        
+        // 调用服务层方法查询汇总
+        InvoiceSummaryVO summary = invoiceService.getInvoiceSummary(request.getPatientId());
+        
+        // 返回成功响应
+        return ApiResponse.success("查询成功", summary);
+    }
+    
+    /**
+     * 1.4 最新发票查询接口
+     * 接口路径：/api/invoice/latest
+     * 请求方式：GET 或 POST
+     * 
+     * 说明：返回患者最新的N张发票（默认5张，最多10张），用于首页卡片等场景，
+     * 数据库只取N行，不需要走完整的列表分页
+     * 
+     * @param request 查询请求对象，包含患者ID和返回条数
+     * @return 统一响应格式，包含最新发票列表
+     */
+    @RequestMapping(value = "/latest", method = {RequestMethod.GET, RequestMethod.POST},
+                    produces = "application/json;charset=UTF-8")
+    public ApiResponse<List<InvoiceListVO>> getLatestInvoices(@RequestBody(required = false) InvoiceLatestRequest request)
+            throws Exception {
+        // 请求对象为空检查
+        if (request == null) {
+            return ApiResponse.error(400, "请求参数不能为空");
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "最新发票查询");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
+        }
+        
+        // 参数校验：患者ID为必填项
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return ApiResponse.error(400, "患者ID不能为空");
         }
+        
+        // 调用服务层方法查询最新发票
+        List<InvoiceListVO> invoices = invoiceService.getLatestInvoices(request.getPatientId(), request.getLimit());
+        
+        // 返回成功响应
+        return ApiResponse.success("查询成功", invoices);
     }
     
     /**
@@ -128,54 +389,116 @@ public class InvoiceController {
      * 接口路径：/api/invoice/detail
      * 请求方式：GET 或 POST
      * 
+     * 发票ID和收据号（rcptNo）二选一；传收据号时按主键查询，可查询尚未开票的收据
+     * 
+     * 条件请求：GET请求的响应带有 ETag，客户端轮询时携带 If-None-Match，数据未变化返回304（无响应体）
+     * 
      * @param request 查询请求对象，包含发票ID和患者ID
      * @return 统一响应格式，包含发票详情数据
      */
     @RequestMapping(value = "/detail", method = {RequestMethod.GET, RequestMethod.POST},
                     produces = "application/json;charset=UTF-8")
-    public ApiResponse<InvoiceDetailVO> getInvoiceDetail(@RequestBody(required = false) InvoiceDetailRequest request) {
-        try {
-            // 请求对象为空检查
-            if (request == null) {
-                return ApiResponse.error(400, "请求参数不能为空");
-            }
-            
-            // API网关参数验证
-            String gatewayError = validateGatewayParams(request, "发票详情查询");
-            if (gatewayError != null) {
-                return ApiResponse.error(400, gatewayError);
-            }
-            
-            // 参数校验：发票ID和患者ID为必填项
-            if (request.getInvoiceId() == null || request.getInvoiceId().trim().isEmpty()) {
-                return ApiResponse.error(400, "发票ID不能为空");
-            }
-            if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
-                return ApiResponse.error(400, "患者ID不能为空");
-            }
-            
-            // 权限校验：验证患者是否有权访问该发票
-            boolean hasAccess = invoiceService.validatePatientAccess(request.getInvoiceId(), request.getPatientId());
-            if (!hasAccess) {
-                return ApiResponse.error(403, "无权访问该发票");
-            }
-            
-            // 调用服务层方法查询发票详情
-            InvoiceDetailVO invoiceDetail = invoiceService.getInvoiceDetail(request);
-            
-            // 发票不存在的情况
-            if (invoiceDetail == null) {
-                return ApiResponse.error(404, "发票不存在");
-            }
-            
-            // 返回成功响应
-            return ApiResponse.success("查询成功", invoiceDetail);
-            
-        } catch (Exception e) {
-            // 异常处理
-            e.printStackTrace();
-            return ApiResponse.error(500, "查询失败：" + e.getMessage());
+    public ApiResponse<InvoiceDetailVO> getInvoiceDetail(@RequestBody(required = false) InvoiceDetailRequest requestBody,
+                                                         @RequestParam(required = false) String invoiceId,
+                                                         @RequestParam(required = false) String rcptNo,
+                                                         @RequestParam(required = false) String patientId,
+                                                         @RequestParam(required = false) String hospitalCode,
+                                                         @RequestParam(required = false) String hospitalName,
+                                                         @RequestParam(required = false) String tickets,
+                                                         WebRequest webRequest) throws Exception {
+        // 支持两种方式：POST的JSON body 或 GET的URL参数
+        InvoiceDetailRequest request = requestBody;
+        if (request == null && (invoiceId != null || rcptNo != null)) {
+            request = new InvoiceDetailRequest(invoiceId, patientId);
+            request.setRcptNo(rcptNo);
+            request.setHospitalCode(hospitalCode);
+            request.setHospitalName(hospitalName);
+            request.setTickets(tickets);
+        }
+        // 请求对象为空检查
+        if (request == null) {
+            return ApiResponse.error(400, "请求参数不能为空");
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "发票详情查询");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
+        }
+        
+        // 参数校验：发票ID或收据号二选一，患者ID为必填项
+        boolean byRcptNo = request.getRcptNo() != null && !request.getRcptNo().trim().isEmpty();
+        if (!byRcptNo && (request.getInvoiceId() == null || request.getInvoiceId().trim().isEmpty())) {
+            return ApiResponse.error(400, "发票ID或收据号不能为空");
         }
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return ApiResponse.error(400, "患者ID不能为空");
+        }
+        
+        // 权限校验：验证患者是否有权访问该发票（同时加载完整详情，后续不再重复查询）
+        // 传了收据号时按主键查询（未开票的收据没有发票ID）
+        InvoiceAccessResult access = byRcptNo
+                ? invoiceService.authorizeDetailByRcptNo(request.getRcptNo().trim(), request.getPatientId())
+                : invoiceService.authorizeDetail(request.getInvoiceId(), request.getPatientId());
+        if (!access.isGranted()) {
+            return ApiResponse.error(403, "无权访问该发票");
+        }
+        
+        // 调用服务层方法查询发票详情
+        InvoiceDetailVO invoiceDetail = invoiceService.getInvoiceDetail(access);
+        
+        // 发票不存在的情况
+        if (invoiceDetail == null) {
+            return ApiResponse.error(404, "发票不存在");
+        }
+        
+        // 数据未变化：返回304，不再序列化响应体
+        if (isConditionalGet(webRequest) && webRequest.checkNotModified(ContentVersion.forDetail(invoiceDetail))) {
+            return null;
+        }
+        
+        // 返回成功响应
+        return ApiResponse.success("查询成功", invoiceDetail);
+    }
+    
+    /**
+     * 2.1 批量发票详情查询接口
+     * 接口路径：/api/invoice/detail/batch
+     * 请求方式：POST
+     * 
+     * 说明：
+     * 1. 一次查询同一患者的多张发票详情（如报销页面），数据库只执行一次IN查询
+     * 2. 每张发票单独返回结果：OK-成功，NOT_FOUND-发票不存在，FORBIDDEN-无权访问，
+     *    个别发票失败不影响其他发票
+     * 
+     * @param request 查询请求对象，包含发票ID列表和患者ID
+     * @return 统一响应格式，包含每张发票的查询结果
+     */
+    @PostMapping(value = "/detail/batch", produces = "application/json;charset=UTF-8")
+    public ApiResponse<List<InvoiceDetailBatchItemVO>> getInvoiceDetails(
+            @RequestBody(required = false) InvoiceDetailBatchRequest request) throws Exception {
+        // 请求对象为空检查
+        if (request == null) {
+            return ApiResponse.error(400, "请求参数不能为空");
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "批量发票详情查询");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
+        }
+        
+        // 参数校验：患者ID为必填项（发票ID列表在服务层校验）
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return ApiResponse.error(400, "患者ID不能为空");
+        }
+        
+        // 调用服务层方法批量查询
+        List<InvoiceDetailBatchItemVO> results =
+                invoiceService.getInvoiceDetails(request.getPatientId().trim(), request.getInvoiceIds());
+        
+        // 返回成功响应
+        return ApiResponse.success("查询成功", results);
     }
     
     /**
@@ -187,52 +510,45 @@ public class InvoiceController {
      * @return 统一响应格式，包含发送结果数据
      */
     @PostMapping(value = "/sendEmail", produces = "application/json;charset=UTF-8")
-    public ApiResponse<SendEmailVO> sendInvoiceToEmail(@RequestBody SendEmailRequest request) {
-        try {
-            // 请求对象为空检查
-            if (request == null) {
-                return ApiResponse.error(400, "请求参数不能为空");
-            }
-            
-            // API网关参数验证
-            String gatewayError = validateGatewayParams(request, "发送邮件");
-            if (gatewayError != null) {
-                return ApiResponse.error(400, gatewayError);
-            }
-            
-            // 参数校验
-            if (request.getInvoiceId() == null || request.getInvoiceId().trim().isEmpty()) {
-                return ApiResponse.error(400, "发票ID不能为空");
-            }
-            if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
-                return ApiResponse.error(400, "患者ID不能为空");
-            }
-            if (request.getEmail() == null || request.getEmail().trim().isEmpty()) {
-                return ApiResponse.error(400, "邮箱地址不能为空");
-            }
-            
-            // 邮箱格式校验（简单验证，实际可使用正则表达式进行更严格的校验）
-            if (!request.getEmail().contains("@")) {
-                return ApiResponse.error(30001, "邮箱格式错误");
-            }
-            
-            // 权限校验
-            boolean hasAccess = invoiceService.validatePatientAccess(request.getInvoiceId(), request.getPatientId());
-            if (!hasAccess) {
-                return ApiResponse.error(403, "无权访问该发票");
-            }
-            
-            // 调用服务层方法发送邮件
-            SendEmailVO result = invoiceService.sendInvoiceToEmail(request);
-            
-            // 返回成功响应
-            return ApiResponse.success("发送成功", result);
-            
-        } catch (Exception e) {
-            // 异常处理
-            e.printStackTrace();
-            return ApiResponse.error(30002, "邮件发送失败：" + e.getMessage());
+    public ApiResponse<SendEmailVO> sendInvoiceToEmail(@RequestBody SendEmailRequest request) throws Exception {
+        // 请求对象为空检查
+        if (request == null) {
+            return ApiResponse.error(400, "请求参数不能为空");
+        }
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "发送邮件");
+        if (gatewayError != null) {
+            return ApiResponse.error(400, gatewayError);
         }
+        
+        // 参数校验
+        if (request.getInvoiceId() == null || request.getInvoiceId().trim().isEmpty()) {
+            return ApiResponse.error(400, "发票ID不能为空");
+        }
+        if (request.getPatientId() == null || request.getPatientId().trim().isEmpty()) {
+            return ApiResponse.error(400, "患者ID不能为空");
+        }
+        if (request.getEmail() == null || request.getEmail().trim().isEmpty()) {
+            return ApiResponse.error(400, "邮箱地址不能为空");
+        }
+        
+        // 邮箱格式校验（简单验证，实际可使用正则表达式进行更严格的校验）
+        if (!request.getEmail().contains("@")) {
+            return ApiResponse.error(30001, "邮箱格式错误");
+        }
+        
+        // 权限校验（同时加载发票，后续不再重复查询）
+        InvoiceAccessResult access = invoiceService.authorize(request.getInvoiceId(), request.getPatientId());
+        if (!access.isGranted()) {
+            return ApiResponse.error(403, "无权访问该发票");
+        }
+        
+        // 调用服务层方法发送邮件
+        SendEmailVO result = invoiceService.sendInvoiceToEmail(request, access);
+        
+        // 返回成功响应
+        return ApiResponse.success("发送成功", result);
     }
     
     /**
@@ -240,14 +556,20 @@ public class InvoiceController {
      * 接口路径：/api/invoice/download
      * 请求方式：GET
      * 
-     * 说明：此接口直接返回PDF文件流，不使用统一的ApiResponse格式
+     * 说明：此接口直接返回PDF文件流，不使用统一的ApiResponse格式；
+     * 文件内容不经过堆内存，本地文件使用 sendfile / transferTo 输出，远程文件使用固定大小缓冲区转发；
+     * 支持断点续传：Range 请求返回206，If-Range 校验文件是否变化，详见 PdfStreamer；
+     * 未缓存的PDF在 PdfWorkerPool 中下载或生成，请求线程最多等待 invoice.pdf.worker.timeout-ms，
+     * 超时返回503（下载继续进行，重试时命中缓存），阻塞线程数上限见 PdfWorkerPool
      * 
      * @param invoiceId 发票ID（URL参数）
      * @param patientId 患者ID（URL参数，用于权限校验）
      * @param hospitalCode 医院编码（URL参数，必填）
      * @param hospitalName 医院名称（URL参数，必填）
      * @param tickets API网关票据（URL参数，必填）
-     * @return PDF文件流或错误信息
+     * @param httpRequest HTTP请求（用于 sendfile）
+     * @param httpResponse HTTP响应（PDF文件直接写入）
+     * @return 校验失败时返回错误信息，成功时PDF已写入响应，返回null
      */
     @GetMapping("/download")
     public ResponseEntity<?> downloadInvoice(
@@ -255,69 +577,57 @@ public class InvoiceController {
             @RequestParam("patientId") String patientId,
             @RequestParam("hospitalCode") String hospitalCode,
             @RequestParam("hospitalName") String hospitalName,
-            @RequestParam("tickets") String tickets) {
+            @RequestParam("tickets") String tickets,
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) throws Exception {
+        // 创建请求对象用于参数验证
+        InvoiceDownloadRequest request = new InvoiceDownloadRequest(invoiceId, patientId);
+        request.setHospitalCode(hospitalCode);
+        request.setHospitalName(hospitalName);
+        request.setTickets(tickets);
+        
+        // API网关参数验证
+        String gatewayError = validateGatewayParams(request, "下载发票");
+        if (gatewayError != null) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, gatewayError));
+        }
+        
+        // 参数校验
+        if (invoiceId == null || invoiceId.trim().isEmpty()) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, "发票ID不能为空"));
+        }
+        if (patientId == null || patientId.trim().isEmpty()) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, "患者ID不能为空"));
+        }
+        
+        // 权限校验（同时加载发票，后续不再重复查询）
+        InvoiceAccessResult access = invoiceService.authorize(invoiceId, patientId);
+        if (!access.isGranted()) {
+            return ResponseEntity
+                    .status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error(403, "无权访问该发票"));
+        }
+        
+        // 调用服务层方法获取PDF文件位置（PDF文件不存在时抛出404业务异常）
+        InvoicePdf pdf = invoiceService.downloadInvoicePdf(access);
+        
+        // 直接写入响应流，不整体读入内存
         try {
-            // 创建请求对象用于参数验证
-            InvoiceDownloadRequest request = new InvoiceDownloadRequest(invoiceId, patientId);
-            request.setHospitalCode(hospitalCode);
-            request.setHospitalName(hospitalName);
-            request.setTickets(tickets);
-            
-            // API网关参数验证
-            String gatewayError = validateGatewayParams(request, "下载发票");
-            if (gatewayError != null) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(ApiResponse.error(400, gatewayError));
-            }
-            
-            // 参数校验
-            if (invoiceId == null || invoiceId.trim().isEmpty()) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(ApiResponse.error(400, "发票ID不能为空"));
-            }
-            if (patientId == null || patientId.trim().isEmpty()) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(ApiResponse.error(400, "患者ID不能为空"));
+            pdfStreamer.write(pdf, "invoice_" + invoiceId + ".pdf", httpRequest, httpResponse);
+        } catch (IOException e) {
+            if (!httpResponse.isCommitted()) {
+                throw e;
             }
-            
-            // 权限校验
-            boolean hasAccess = invoiceService.validatePatientAccess(invoiceId, patientId);
-            if (!hasAccess) {
-                return ResponseEntity
-                        .status(HttpStatus.FORBIDDEN)
-                        .body(ApiResponse.error(403, "无权访问该发票"));
-            }
-            
-            // 调用服务层方法获取PDF文件字节流
-            byte[] pdfBytes = invoiceService.downloadInvoicePdf(request);
-            
-            // PDF文件不存在的情况
-            if (pdfBytes == null || pdfBytes.length == 0) {
-                return ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
-                        .body(ApiResponse.error(404, "发票PDF文件不存在"));
-            }
-            
-            // 设置响应头，告诉浏览器这是一个PDF文件
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            // 设置文件名（可以根据实际情况调整）
-            headers.setContentDispositionFormData("attachment", "invoice_" + invoiceId + ".pdf");
-            headers.setContentLength(pdfBytes.length);
-            
-            // 返回PDF文件流
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-            
-        } catch (Exception e) {
-            // 异常处理：返回JSON格式的错误信息
-            e.printStackTrace();
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error(500, "下载失败：" + e.getMessage()));
+            // 已开始输出后出错（通常是客户端断开），响应无法再改写为错误信息
+            log.debug("发票PDF输出中断：{}", invoiceId, e);
         }
+        return null;
     }
 }
 
@@ -0,0 +1,48 @@
+package com.hospital.invoice.dto.request;
+
+import java.util.List;
+
+/**
+ * 批量发票详情查询请求参数类
+ * 对应接口：/api/invoice/detail/batch
+ */
+public class InvoiceDetailBatchRequest extends BaseRequest {
+    
+    /**
+     * 发票ID列表（必填，数量有上限）
+     */
+    private List<String> invoiceIds;
+    
+    /**
+     * 患者ID（必填，用于权限校验）
+     */
+    private String patientId;
+    
+    // 无参构造函数
+    public InvoiceDetailBatchRequest() {
+    }
+    
+    // 全参构造函数
+    public InvoiceDetailBatchRequest(List<String> invoiceIds, String patientId) {
+        this.invoiceIds = invoiceIds;
+        this.patientId = patientId;
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public List<String> getInvoiceIds() {
+        return invoiceIds;
+    }
+    
+    public void setInvoiceIds(List<String> invoiceIds) {
+        this.invoiceIds = invoiceIds;
+    }
+    
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+}
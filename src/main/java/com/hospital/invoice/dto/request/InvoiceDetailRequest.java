@@ -7,10 +7,15 @@ package com.hospital.invoice.dto.request;
 public class InvoiceDetailRequest extends BaseRequest {
     
     /**
-     * 发票唯一标识ID（必填）
+     * 发票唯一标识ID（与收据号二选一）
      */
     private String invoiceId;
     
+    /**
+     * 收据号（与发票ID二选一，按主键查询；未开票的收据只能按收据号查询）
+     */
+    private String rcptNo;
+    
     /**
      * 患者ID（必填，用于权限校验）
      */
@@ -36,6 +41,14 @@ public class InvoiceDetailRequest extends BaseRequest {
         this.invoiceId = invoiceId;
     }
     
+    public String getRcptNo() {
+        return rcptNo;
+    }
+    
+    public void setRcptNo(String rcptNo) {
+        this.rcptNo = rcptNo;
+    }
+    
     public String getPatientId() {
         return patientId;
     }
@@ -0,0 +1,47 @@
+package com.hospital.invoice.dto.request;
+
+/**
+ * 最新发票查询请求参数类
+ * 对应接口：/api/invoice/latest
+ */
+public class InvoiceLatestRequest extends BaseRequest {
+    
+    /**
+     * 患者ID（必填）
+     */
+    private String patientId;
+    
+    /**
+     * 返回条数（可选）
+     * 不传使用默认值，超过上限按上限处理
+     */
+    private Integer limit;
+    
+    // 无参构造函数
+    public InvoiceLatestRequest() {
+    }
+    
+    // 全参构造函数
+    public InvoiceLatestRequest(String patientId, Integer limit) {
+        this.patientId = patientId;
+        this.limit = limit;
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+    
+    public Integer getLimit() {
+        return limit;
+    }
+    
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -1,8 +1,10 @@
 package com.hospital.invoice.dto.request;
 
+import java.util.List;
+
 /**
  * 发票列表查询请求参数类
- * 对应接口：/api/invoice/list
+ * 对应接口：/api/invoice/list、/api/invoice/list/batch
  */
 public class InvoiceListRequest extends BaseRequest {
     
@@ -11,6 +13,12 @@ public class InvoiceListRequest extends BaseRequest {
      */
     private String patientId;
     
+    /**
+     * 患者ID列表（多患者查询时必填，如监护人查看多个被监护人的发票）
+     * 仅 /api/invoice/list/batch 使用，数量有上限
+     */
+    private List<String> patientIds;
+    
     /**
      * 患者姓名（可选）
      */
@@ -45,6 +53,18 @@ public class InvoiceListRequest extends BaseRequest {
      */
     private String status;
     
+    /**
+     * 分页游标（可选）
+     * 首页不传；后续页传上一页响应中的 nextCursor
+     */
+    private String cursor;
+    
+    /**
+     * 每页条数（可选）
+     * 不传使用默认值，超过上限按上限处理
+     */
+    private Integer pageSize;
+    
     // 无参构造函数
     public InvoiceListRequest() {
     }
@@ -59,6 +79,14 @@ public class InvoiceListRequest extends BaseRequest {
         this.patientId = patientId;
     }
     
+    public List<String> getPatientIds() {
+        return patientIds;
+    }
+    
+    public void setPatientIds(List<String> patientIds) {
+        this.patientIds = patientIds;
+    }
+    
     public String getPatientName() {
         return patientName;
     }
@@ -106,6 +134,22 @@ public class InvoiceListRequest extends BaseRequest {
     public void setStatus(String status) {
         this.status = status;
     }
+    
+    public String getCursor() {
+        return cursor;
+    }
+    
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+    
+    public Integer getPageSize() {
+        return pageSize;
+    }
+    
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
 }
 
 
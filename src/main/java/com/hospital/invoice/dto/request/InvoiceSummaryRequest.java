@@ -0,0 +1,32 @@
+package com.hospital.invoice.dto.request;
+
+/**
+ * 发票汇总查询请求参数类
+ * 对应接口：/api/invoice/summary
+ */
+public class InvoiceSummaryRequest extends BaseRequest {
+    
+    /**
+     * 患者ID（必填）
+     */
+    private String patientId;
+    
+    // 无参构造函数
+    public InvoiceSummaryRequest() {
+    }
+    
+    // 全参构造函数
+    public InvoiceSummaryRequest(String patientId) {
+        this.patientId = patientId;
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+}
@@ -0,0 +1,70 @@
+package com.hospital.invoice.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 批量发票详情查询的单项结果视图对象
+ * 每张发票单独给出查询结果，某张发票不存在或无权访问不影响其他发票
+ */
+public class InvoiceDetailBatchItemVO {
+    
+    /**
+     * 发票ID（与请求中的顺序一致）
+     */
+    private String invoiceId;
+    
+    /**
+     * 查询结果代码
+     * 可选值：OK-成功，NOT_FOUND-发票不存在，FORBIDDEN-无权访问
+     */
+    private String result;
+    
+    /**
+     * 查询结果说明
+     */
+    private String message;
+    
+    /**
+     * 发票详情（仅查询成功时返回）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private InvoiceDetailVO detail;
+    
+    // 无参构造函数
+    public InvoiceDetailBatchItemVO() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getInvoiceId() {
+        return invoiceId;
+    }
+    
+    public void setInvoiceId(String invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+    
+    public String getResult() {
+        return result;
+    }
+    
+    public void setResult(String result) {
+        this.result = result;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public InvoiceDetailVO getDetail() {
+        return detail;
+    }
+    
+    public void setDetail(InvoiceDetailVO detail) {
+        this.detail = detail;
+    }
+}
@@ -0,0 +1,113 @@
+package com.hospital.invoice.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 发票汇总项视图对象
+ * 一组发票（按类型、状态、月份中的一个或多个维度分组）的张数和金额合计
+ * 
+ * 说明：不参与分组的维度为null，不输出到JSON
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InvoiceSummaryItemVO {
+    
+    /**
+     * 票据类型代码
+     * 例如：OUTPATIENT、INPATIENT、EXAMINATION
+     */
+    private String invoiceType;
+    
+    /**
+     * 票据类型中文描述
+     */
+    private String invoiceTypeLabel;
+    
+    /**
+     * 发票状态代码
+     * 例如：ISSUED、PENDING、CANCELLED、REVERSED
+     */
+    private String status;
+    
+    /**
+     * 发票状态中文描述
+     */
+    private String statusLabel;
+    
+    /**
+     * 开票月份，格式：yyyy-MM
+     * 开票时间为空的发票归入空字符串月份
+     */
+    private String month;
+    
+    /**
+     * 发票张数
+     */
+    private Long count;
+    
+    /**
+     * 金额合计（单位：元），字符串格式，保留两位小数
+     */
+    private String amount;
+    
+    // 无参构造函数
+    public InvoiceSummaryItemVO() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getInvoiceType() {
+        return invoiceType;
+    }
+    
+    public void setInvoiceType(String invoiceType) {
+        this.invoiceType = invoiceType;
+    }
+    
+    public String getInvoiceTypeLabel() {
+        return invoiceTypeLabel;
+    }
+    
+    public void setInvoiceTypeLabel(String invoiceTypeLabel) {
+        this.invoiceTypeLabel = invoiceTypeLabel;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getStatusLabel() {
+        return statusLabel;
+    }
+    
+    public void setStatusLabel(String statusLabel) {
+        this.statusLabel = statusLabel;
+    }
+    
+    public String getMonth() {
+        return month;
+    }
+    
+    public void setMonth(String month) {
+        this.month = month;
+    }
+    
+    public Long getCount() {
+        return count;
+    }
+    
+    public void setCount(Long count) {
+        this.count = count;
+    }
+    
+    public String getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(String amount) {
+        this.amount = amount;
+    }
+}
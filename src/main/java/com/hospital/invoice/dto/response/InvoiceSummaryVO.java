@@ -0,0 +1,113 @@
+package com.hospital.invoice.dto.response;
+
+import java.util.List;
+
+/**
+ * 患者发票汇总视图对象
+ * 用于返回按类型、状态、月份统计的张数和金额
+ * 
+ * 说明：
+ * 1. groups 为 类型 + 状态 + 月份 三个维度的明细分组（数据库一次GROUP BY的结果）
+ * 2. byType、byStatus、byMonth 为在明细分组上按单一维度的合计，totalCount、totalAmount 为总计
+ * 3. totalAmount 不含已作废（CANCELLED）、已冲红（REVERSED）发票的金额，totalCount 包含全部发票
+ */
+public class InvoiceSummaryVO {
+    
+    /**
+     * 患者ID
+     */
+    private String patientId;
+    
+    /**
+     * 发票总张数
+     */
+    private Long totalCount;
+    
+    /**
+     * 有效发票金额总计（单位：元），字符串格式，保留两位小数
+     * 不含已作废、已冲红的发票
+     */
+    private String totalAmount;
+    
+    /**
+     * 按票据类型合计
+     */
+    private List<InvoiceSummaryItemVO> byType;
+    
+    /**
+     * 按发票状态合计
+     */
+    private List<InvoiceSummaryItemVO> byStatus;
+    
+    /**
+     * 按开票月份合计（月份倒序）
+     */
+    private List<InvoiceSummaryItemVO> byMonth;
+    
+    /**
+     * 类型 + 状态 + 月份 明细分组
+     */
+    private List<InvoiceSummaryItemVO> groups;
+    
+    // 无参构造函数
+    public InvoiceSummaryVO() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+    
+    public Long getTotalCount() {
+        return totalCount;
+    }
+    
+    public void setTotalCount(Long totalCount) {
+        this.totalCount = totalCount;
+    }
+    
+    public String getTotalAmount() {
+        return totalAmount;
+    }
+    
+    public void setTotalAmount(String totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+    
+    public List<InvoiceSummaryItemVO> getByType() {
+        return byType;
+    }
+    
+    public void setByType(List<InvoiceSummaryItemVO> byType) {
+        this.byType = byType;
+    }
+    
+    public List<InvoiceSummaryItemVO> getByStatus() {
+        return byStatus;
+    }
+    
+    public void setByStatus(List<InvoiceSummaryItemVO> byStatus) {
+        this.byStatus = byStatus;
+    }
+    
+    public List<InvoiceSummaryItemVO> getByMonth() {
+        return byMonth;
+    }
+    
+    public void setByMonth(List<InvoiceSummaryItemVO> byMonth) {
+        this.byMonth = byMonth;
+    }
+    
+    public List<InvoiceSummaryItemVO> getGroups() {
+        return groups;
+    }
+    
+    public void setGroups(List<InvoiceSummaryItemVO> groups) {
+        this.groups = groups;
+    }
+}
@@ -0,0 +1,118 @@
+package com.hospital.invoice.dto.response;
+
+/**
+ * 发票列表读取方式基准测试结果视图对象（View Object）
+ * 每种读取方式一条结果，用于对比JPA实体方式与JDBC行映射方式的耗时和内存分配
+ */
+public class ListReadBenchmarkVO {
+    
+    /**
+     * 读取方式代码（JPA / JDBC）
+     */
+    private String mode;
+    
+    /**
+     * 计入统计的执行次数（不含预热）
+     */
+    private Integer iterations;
+    
+    /**
+     * 每次返回的行数
+     */
+    private Integer rows;
+    
+    /**
+     * 平均耗时（毫秒）
+     */
+    private Double avgMillis;
+    
+    /**
+     * 最短耗时（毫秒）
+     */
+    private Double minMillis;
+    
+    /**
+     * 最长耗时（毫秒）
+     */
+    private Double maxMillis;
+    
+    /**
+     * 每次执行平均分配的堆内存（字节，当前线程）
+     */
+    private Long avgAllocatedBytes;
+    
+    /**
+     * 每行平均分配的堆内存（字节）
+     */
+    private Long allocatedBytesPerRow;
+    
+    // 无参构造函数
+    public ListReadBenchmarkVO() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getMode() {
+        return mode;
+    }
+    
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+    
+    public Integer getIterations() {
+        return iterations;
+    }
+    
+    public void setIterations(Integer iterations) {
+        this.iterations = iterations;
+    }
+    
+    public Integer getRows() {
+        return rows;
+    }
+    
+    public void setRows(Integer rows) {
+        this.rows = rows;
+    }
+    
+    public Double getAvgMillis() {
+        return avgMillis;
+    }
+    
+    public void setAvgMillis(Double avgMillis) {
+        this.avgMillis = avgMillis;
+    }
+    
+    public Double getMinMillis() {
+        return minMillis;
+    }
+    
+    public void setMinMillis(Double minMillis) {
+        this.minMillis = minMillis;
+    }
+    
+    public Double getMaxMillis() {
+        return maxMillis;
+    }
+    
+    public void setMaxMillis(Double maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+    
+    public Long getAvgAllocatedBytes() {
+        return avgAllocatedBytes;
+    }
+    
+    public void setAvgAllocatedBytes(Long avgAllocatedBytes) {
+        this.avgAllocatedBytes = avgAllocatedBytes;
+    }
+    
+    public Long getAllocatedBytesPerRow() {
+        return allocatedBytesPerRow;
+    }
+    
+    public void setAllocatedBytesPerRow(Long allocatedBytesPerRow) {
+        this.allocatedBytesPerRow = allocatedBytesPerRow;
+    }
+}
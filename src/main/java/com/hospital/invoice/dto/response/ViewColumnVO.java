@@ -0,0 +1,61 @@
+package com.hospital.invoice.dto.response;
+
+/**
+ * 视图列定义视图对象（View Object）
+ * 用于诊断接口返回视图的列结构（来自 ALL_TAB_COLUMNS）
+ */
+public class ViewColumnVO {
+    
+    /**
+     * 列名
+     */
+    private String columnName;
+    
+    /**
+     * 数据类型
+     * 例如：VARCHAR2、NUMBER、DATE
+     */
+    private String dataType;
+    
+    /**
+     * 列顺序（从1开始）
+     */
+    private Integer columnId;
+    
+    // 无参构造函数
+    public ViewColumnVO() {
+    }
+    
+    // 全参构造函数
+    public ViewColumnVO(String columnName, String dataType, Integer columnId) {
+        this.columnName = columnName;
+        this.dataType = dataType;
+        this.columnId = columnId;
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getColumnName() {
+        return columnName;
+    }
+    
+    public void setColumnName(String columnName) {
+        this.columnName = columnName;
+    }
+    
+    public String getDataType() {
+        return dataType;
+    }
+    
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+    
+    public Integer getColumnId() {
+        return columnId;
+    }
+    
+    public void setColumnId(Integer columnId) {
+        this.columnId = columnId;
+    }
+}
@@ -0,0 +1,82 @@
+package com.hospital.invoice.dto.response;
+
+import java.util.List;
+
+/**
+ * 视图结构快照视图对象（View Object）
+ * 启动时采集一次并缓存，供诊断接口直接返回
+ */
+public class ViewSchemaVO {
+    
+    /**
+     * 视图所属schema
+     */
+    private String owner;
+    
+    /**
+     * 视图名称
+     */
+    private String viewName;
+    
+    /**
+     * 列定义（按COLUMN_ID排序）
+     */
+    private List<ViewColumnVO> columns;
+    
+    /**
+     * 采集时间
+     * 格式：yyyy-MM-dd HH:mm:ss
+     */
+    private String capturedAt;
+    
+    /**
+     * 采集失败时的错误信息（成功时为null）
+     */
+    private String error;
+    
+    // 无参构造函数
+    public ViewSchemaVO() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public String getViewName() {
+        return viewName;
+    }
+    
+    public void setViewName(String viewName) {
+        this.viewName = viewName;
+    }
+    
+    public List<ViewColumnVO> getColumns() {
+        return columns;
+    }
+    
+    public void setColumns(List<ViewColumnVO> columns) {
+        this.columns = columns;
+    }
+    
+    public String getCapturedAt() {
+        return capturedAt;
+    }
+    
+    public void setCapturedAt(String capturedAt) {
+        this.capturedAt = capturedAt;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hospital.invoice.entity.view;
+
+/**
+ * 发票详情核心字段
+ * 权限校验、发送邮件、下载PDF只需要这些字段，不需要加载详情视图的全部字段
+ * 
+ * 实现类：
+ * 1. InvoiceDetailCoreView：只映射核心字段的精简实体，权限校验时查询
+ * 2. InvoiceDetailView：完整详情视图，查询详情时按收据号（主键）加载
+ */
+public interface InvoiceDetailCore {
+    
+    /**
+     * 收据号（主键）
+     */
+    String getRcptNo();
+    
+    /**
+     * 发票ID（未开票时为null）
+     */
+    String getInvoiceId();
+    
+    /**
+     * 发票号码（未开票时为null）
+     */
+    String getInvoiceNo();
+    
+    /**
+     * 患者ID
+     */
+    String getPatientId();
+    
+    /**
+     * 发票状态代码
+     */
+    String getStatus();
+    
+    /**
+     * PDF文件地址
+     */
+    String getPdfUrl();
+}
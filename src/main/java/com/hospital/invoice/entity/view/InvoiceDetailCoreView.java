@@ -0,0 +1,124 @@
+package com.hospital.invoice.entity.view;
+
+import com.hospital.invoice.cache.CacheRegions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * 发票详情视图实体类 - 核心字段
+ * 对应数据库视图：comm.invoice_detail_view（与 InvoiceDetailView 相同）
+ * 
+ * 说明：
+ * 1. 只映射权限校验和PDF定位需要的字段，不读取金额、备注、二维码地址及GBK编码的中文字段
+ * 2. 权限校验、发送邮件、下载PDF只使用此实体；查询详情时再按收据号加载 InvoiceDetailView
+ * 3. 只读视图，使用 READ_ONLY 策略进入二级缓存（独立区域）
+ */
+@Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.DETAIL_CORE_VIEW)
+@Table(name = "INVOICE_DETAIL_VIEW", schema = "COMM")
+public class InvoiceDetailCoreView implements InvoiceDetailCore {
+    
+    /**
+     * 收据号（主键）
+     */
+    @Id
+    @Column(name = "RCPT_NO")
+    private String rcptNo;
+    
+    /**
+     * 发票唯一标识ID
+     * 注意：未开票时为NULL
+     */
+    @Column(name = "INVOICE_ID")
+    private String invoiceId;
+    
+    /**
+     * 发票号码（完整号码）
+     * 注意：未开票时为NULL
+     */
+    @Column(name = "INVOICE_NO")
+    private String invoiceNo;
+    
+    /**
+     * 患者ID
+     */
+    @Column(name = "PATIENT_ID")
+    private String patientId;
+    
+    /**
+     * 发票状态代码
+     */
+    @Column(name = "STATUS")
+    private String status;
+    
+    /**
+     * PDF文件地址
+     */
+    @Column(name = "PDF_URL")
+    private String pdfUrl;
+    
+    // 无参构造函数
+    public InvoiceDetailCoreView() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    @Override
+    public String getRcptNo() {
+        return rcptNo;
+    }
+    
+    public void setRcptNo(String rcptNo) {
+        this.rcptNo = rcptNo;
+    }
+    
+    @Override
+    public String getInvoiceId() {
+        return invoiceId;
+    }
+    
+    public void setInvoiceId(String invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+    
+    @Override
+    public String getInvoiceNo() {
+        return invoiceNo;
+    }
+    
+    public void setInvoiceNo(String invoiceNo) {
+        this.invoiceNo = invoiceNo;
+    }
+    
+    @Override
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+    
+    @Override
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    @Override
+    public String getPdfUrl() {
+        return pdfUrl;
+    }
+    
+    public void setPdfUrl(String pdfUrl) {
+        this.pdfUrl = pdfUrl;
+    }
+}
@@ -1,5 +1,8 @@
 package com.hospital.invoice.entity.view;
 
+import com.hospital.invoice.cache.CacheRegions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
@@ -15,11 +18,15 @@ import java.util.Date;
  * 2. Oracle字段名默认大写，必须用@Column指定
  * 3. @Immutable标记为只读（视图不支持增删改）
  * 4. schema必须指定为COMM
+ * 5. 只读视图使用 READ_ONLY 策略进入二级缓存（区域配置见 SecondLevelCacheConfig）
+ * 6. 权限校验等只需要少数字段的场景使用 InvoiceDetailCoreView，只有查询详情时才加载此实体
  */
 @Entity
 @Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.DETAIL_VIEW)
 @Table(name = "INVOICE_DETAIL_VIEW", schema = "COMM")
-public class InvoiceDetailView {
+public class InvoiceDetailView implements InvoiceDetailCore {
     
     /**
      * 收据号（主键）
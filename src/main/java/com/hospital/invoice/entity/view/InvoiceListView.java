@@ -1,5 +1,8 @@
 package com.hospital.invoice.entity.view;
 
+import com.hospital.invoice.cache.CacheRegions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
@@ -15,9 +18,12 @@ import java.util.Date;
  * 2. Oracle字段名默认大写，必须用@Column指定
  * 3. @Immutable标记为只读（视图不支持增删改）
  * 4. schema必须指定为COMM
+ * 5. 只读视图使用 READ_ONLY 策略进入二级缓存（区域配置见 SecondLevelCacheConfig）
  */
 @Entity
 @Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.LIST_VIEW)
 @Table(name = "INVOICE_LIST_VIEW", schema = "COMM")
 public class InvoiceListView {
     
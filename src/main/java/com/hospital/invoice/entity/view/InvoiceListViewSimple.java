@@ -1,5 +1,8 @@
 package com.hospital.invoice.entity.view;
 
+import com.hospital.invoice.cache.CacheRegions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
 
 import javax.persistence.*;
@@ -10,6 +13,8 @@ import javax.persistence.*;
  */
 @Entity
 @Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.LIST_VIEW_SIMPLE)
 @Table(name = "INVOICE_LIST_VIEW", schema = "COMM")
 public class InvoiceListViewSimple {
     
@@ -0,0 +1,59 @@
+package com.hospital.invoice.enums;
+
+/**
+ * 发票详情查询结果枚举
+ * 用于批量查询时标识每张发票的查询结果
+ */
+public enum DetailLookupResult {
+    
+    /**
+     * 查询成功
+     */
+    OK("OK", "查询成功"),
+    
+    /**
+     * 发票不存在
+     */
+    NOT_FOUND("NOT_FOUND", "发票不存在"),
+    
+    /**
+     * 发票不属于该患者
+     */
+    FORBIDDEN("FORBIDDEN", "无权访问该发票");
+    
+    /**
+     * 枚举值代码（用于接口传输）
+     */
+    private final String code;
+    
+    /**
+     * 枚举值中文标签（用于前端显示）
+     */
+    private final String label;
+    
+    /**
+     * 构造函数
+     * @param code 枚举代码
+     * @param label 中文标签
+     */
+    DetailLookupResult(String code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+    
+    /**
+     * 获取枚举代码
+     * @return 枚举代码
+     */
+    public String getCode() {
+        return code;
+    }
+    
+    /**
+     * 获取中文标签
+     * @return 中文标签
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,56 @@
+package com.hospital.invoice.enums;
+
+/**
+ * 发票列表读取方式枚举
+ * 通过配置 invoice.list.read-mode 切换
+ */
+public enum ListReadMode {
+    
+    /**
+     * JPA实体方式
+     * 查询结果先加载为受管实体（持久化上下文、快照），再逐字段复制为VO
+     */
+    JPA("JPA", "JPA实体"),
+    
+    /**
+     * JDBC行映射方式
+     * 通过JdbcTemplate + RowMapper直接把结果集映射为VO，不经过Hibernate实体
+     */
+    JDBC("JDBC", "JDBC行映射");
+    
+    /**
+     * 枚举值代码（用于配置和接口传输）
+     */
+    private final String code;
+    
+    /**
+     * 枚举值中文标签（用于前端显示）
+     */
+    private final String label;
+    
+    /**
+     * 构造函数
+     * @param code 枚举代码
+     * @param label 中文标签
+     */
+    ListReadMode(String code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+    
+    /**
+     * 获取枚举代码
+     * @return 枚举代码
+     */
+    public String getCode() {
+        return code;
+    }
+    
+    /**
+     * 获取中文标签
+     * @return 中文标签
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hospital.invoice.pdf;
+
+/**
+ * 单个字节范围（HTTP Range 请求头）
+ * 
+ * 说明：
+ * 1. 只支持单个范围：bytes=起始-结束、bytes=起始-、bytes=-末尾字节数，断点续传只会用到这几种
+ * 2. 多个范围、格式不合法、非 bytes 单位的请求头按未携带处理（返回完整文件），符合HTTP规范允许的做法
+ */
+public final class ByteRange {
+    
+    private static final String BYTES_UNIT = "bytes=";
+    
+    /**
+     * 起始位置（包含）
+     */
+    private final long start;
+    
+    /**
+     * 结束位置（包含）
+     */
+    private final long end;
+    
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+    
+    /**
+     * 解析 Range 请求头
+     * 
+     * @param header Range 请求头
+     * @param length 文件长度（字节）
+     * @return 范围；请求头为空或无法识别时返回null（按完整文件输出）
+     * @throws UnsatisfiableException 范围超出文件长度时抛出（应返回416）
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.isEmpty()) {
+                // 末尾N个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    throw new UnsatisfiableException();
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= length) {
+                throw new UnsatisfiableException();
+            }
+            return new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    public long getStart() {
+        return start;
+    }
+    
+    public long getEnd() {
+        return end;
+    }
+    
+    /**
+     * 范围长度（字节）
+     */
+    public long length() {
+        return end - start + 1;
+    }
+    
+    /**
+     * Content-Range 响应头
+     * @param total 文件长度（字节）
+     */
+    public String toContentRange(long total) {
+        return "bytes " + start + "-" + end + "/" + total;
+    }
+    
+    /**
+     * 请求的范围超出文件长度
+     */
+    public static class UnsatisfiableException extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        public UnsatisfiableException() {
+            super("Range Not Satisfiable", null, false, false);
+        }
+    }
+}
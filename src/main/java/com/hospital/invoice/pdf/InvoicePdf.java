@@ -0,0 +1,160 @@
+package com.hospital.invoice.pdf;
+
+import java.net.URL;
+import java.nio.file.Path;
+
+/**
+ * 发票PDF文件位置
+ * 下载接口只拿到文件位置，由 PdfStreamer 直接写入HTTP响应，文件内容不整体读入内存
+ * 
+ * 说明：
+ * 1. LOCAL：本地文件（或挂载的共享存储），长度和修改时间已知，支持断点续传（Range请求）
+ * 2. REMOTE：HTTP/HTTPS 地址，长度在连接建立后才能确定，Range请求转发给文件服务器
+ * 3. MEMORY：本地生成的PDF（磁盘缓存未启用时），内容在内存中，通常只有几十KB
+ */
+public final class InvoicePdf {
+    
+    /**
+     * 文件存放方式
+     */
+    public enum Location {
+        /**
+         * 本地文件
+         */
+        LOCAL,
+        
+        /**
+         * 远程HTTP地址
+         */
+        REMOTE,
+        
+        /**
+         * 内存中的内容
+         */
+        MEMORY
+    }
+    
+    private final Location location;
+    
+    private final Path file;
+    
+    private final URL url;
+    
+    private final byte[] content;
+    
+    private final long length;
+    
+    private final long lastModified;
+    
+    private final String eTag;
+    
+    private InvoicePdf(Location location, Path file, URL url, byte[] content, long length, long lastModified,
+                       String eTag) {
+        this.location = location;
+        this.file = file;
+        this.url = url;
+        this.content = content;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.eTag = eTag;
+    }
+    
+    /**
+     * 本地文件
+     * @param file 文件路径
+     * @param length 文件长度（字节）
+     * @param lastModified 文件修改时间（毫秒）
+     */
+    public static InvoicePdf local(Path file, long length, long lastModified) {
+        return new InvoicePdf(Location.LOCAL, file, null, null, length, lastModified, null);
+    }
+    
+    /**
+     * 内容哈希已知的本地文件（磁盘缓存），按内容生成ETag
+     * @param file 文件路径
+     * @param length 文件长度（字节）
+     * @param lastModified 文件修改时间（毫秒）
+     * @param eTag 强ETag
+     */
+    public static InvoicePdf local(Path file, long length, long lastModified, String eTag) {
+        return new InvoicePdf(Location.LOCAL, file, null, null, length, lastModified, eTag);
+    }
+    
+    /**
+     * 远程文件
+     * @param url 文件地址
+     */
+    public static InvoicePdf remote(URL url) {
+        return new InvoicePdf(Location.REMOTE, null, url, null, -1, -1, null);
+    }
+    
+    /**
+     * 内存中的内容
+     * @param content PDF内容
+     * @param lastModified 内容对应的业务时间（毫秒，未知时为-1），不使用生成时间，重复生成时保持不变
+     * @param eTag 强ETag（按内容生成）
+     */
+    public static InvoicePdf memory(byte[] content, long lastModified, String eTag) {
+        return new InvoicePdf(Location.MEMORY, null, null, content, content.length, lastModified, eTag);
+    }
+    
+    public Location getLocation() {
+        return location;
+    }
+    
+    /**
+     * 是否为本地文件
+     */
+    public boolean isLocal() {
+        return location == Location.LOCAL;
+    }
+    
+    /**
+     * 是否为远程文件
+     */
+    public boolean isRemote() {
+        return location == Location.REMOTE;
+    }
+    
+    /**
+     * 本地文件路径（远程文件为null）
+     */
+    public Path getFile() {
+        return file;
+    }
+    
+    /**
+     * 远程文件地址（本地文件为null）
+     */
+    public URL getUrl() {
+        return url;
+    }
+    
+    /**
+     * 内存中的内容（其他方式为null）
+     */
+    public byte[] getContent() {
+        return content;
+    }
+    
+    /**
+     * 文件长度（字节），远程文件为-1
+     */
+    public long getLength() {
+        return length;
+    }
+    
+    /**
+     * 文件修改时间（毫秒），远程文件为-1
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+    
+    /**
+     * 按内容生成的强ETag，为null时由文件长度和修改时间生成
+     */
+    public String getETag() {
+        return eTag;
+    }
+}
@@ -0,0 +1,399 @@
+package com.hospital.invoice.pdf;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.invoice.entity.view.InvoiceDetailView;
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeCollection;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发票PDF生成（PDFBox）
+ * 没有外部PDF文件（PDF_URL为空）的发票，按版式模板用发票详情字段在本地生成PDF
+ * 
+ * 性能说明：
+ * 1. 版式模板启动时解析一次（PdfTemplate），生成时只读使用
+ * 2. 中文字体启动时解析一次，每份PDF只嵌入用到的字形（PDType0Font 子集化），
+ *    文件通常只有几十KB，生成耗时在毫秒级，不会每次请求重新加载字体文件
+ * 3. TrueTypeFont 按需读取字形数据，不能多线程同时使用：按 invoice.pdf.render.font-instances
+ *    解析多个实例放入池中，每次生成借用一个（实例直接读字体文件，不占用堆内存复制字体数据）
+ * 
+ * 说明：
+ * 1. 未配置中文字体（invoice.pdf.render.font-path）时不可用
+ * 2. 生成结果是确定的：创建时间取发票业务日期，文档标识按内容来源生成，
+ *    同一张发票（字段、模板、字体不变）重复生成的PDF逐字节一致
+ */
+@Component
+public class InvoicePdfRenderer {
+    
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfRenderer.class);
+    
+    /**
+     * 字体中没有的字符替换为此字符
+     */
+    private static final char MISSING_GLYPH = '?';
+    
+    /**
+     * PDF创建时间的时区（北京时间，与接口JSON一致），不随服务器时区变化
+     */
+    private static final TimeZone DOCUMENT_TIME_ZONE = TimeZone.getTimeZone("GMT+8");
+    
+    /**
+     * 是否启用本地生成
+     */
+    @Value("${invoice.pdf.render.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 版式模板
+     */
+    @Value("${invoice.pdf.render.template:classpath:pdf/invoice-template.json}")
+    private String templateLocation;
+    
+    /**
+     * 中文字体文件（TrueType字体 .ttf 或字体集合 .ttc，如 simsun.ttc）
+     */
+    @Value("${invoice.pdf.render.font-path:}")
+    private String fontPath;
+    
+    /**
+     * 字体集合（.ttc）中使用的字体名称，为空时使用第一个字体
+     */
+    @Value("${invoice.pdf.render.font-name:}")
+    private String fontName;
+    
+    /**
+     * 字体实例数（同时生成PDF的最大个数），0表示CPU核数
+     */
+    @Value("${invoice.pdf.render.font-instances:0}")
+    private int fontInstances;
+    
+    /**
+     * 等待空闲字体实例的最长时间（毫秒）
+     */
+    @Value("${invoice.pdf.render.font-wait-ms:5000}")
+    private long fontWaitMs;
+    
+    @Autowired
+    private ResourceLoader resourceLoader;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private PdfTemplate template;
+    
+    /**
+     * 空闲的字体实例
+     */
+    private BlockingQueue<FontInstance> fonts;
+    
+    /**
+     * 全部字体实例（用于关闭）
+     */
+    private final List<FontInstance> allFonts = new ArrayList<>();
+    
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (fontPath == null || fontPath.trim().isEmpty()) {
+            log.info("未配置PDF生成字体（invoice.pdf.render.font-path），本地生成发票PDF不可用");
+            return;
+        }
+        try {
+            Resource resource = resourceLoader.getResource(templateLocation);
+            try (InputStream in = resource.getInputStream()) {
+                this.template = objectMapper.readValue(in, PdfTemplate.class);
+            }
+            int instances = fontInstances > 0 ? fontInstances : Runtime.getRuntime().availableProcessors();
+            BlockingQueue<FontInstance> queue = new ArrayBlockingQueue<>(instances);
+            for (int i = 0; i < instances; i++) {
+                FontInstance font = loadFont(new File(fontPath.trim()));
+                allFonts.add(font);
+                queue.add(font);
+            }
+            this.fonts = queue;
+            log.info("PDF生成已就绪：模板={}，字体={}，字体实例{}个", template.getName(), fontPath, instances);
+        } catch (IOException | RuntimeException e) {
+            close();
+            this.fonts = null;
+            log.warn("PDF生成初始化失败，本地生成发票PDF不可用 - {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        for (FontInstance font : allFonts) {
+            try {
+                font.close();
+            } catch (IOException e) {
+                log.debug("关闭字体失败", e);
+            }
+        }
+        allFonts.clear();
+    }
+    
+    /**
+     * 是否可以生成PDF（已启用且字体、模板加载成功）
+     */
+    public boolean isAvailable() {
+        return fonts != null;
+    }
+    
+    /**
+     * PDF内容来源：模板名称 + 字体 + 全部字段值
+     * 任一字段、模板或字体变化时来源变化，用于判断磁盘缓存中已生成的PDF是否仍然有效
+     * 
+     * @param view 发票详情
+     * @return 来源字符串
+     */
+    public String contentSource(InvoiceDetailView view) {
+        return "render:" + template.getName() + ":" + fontPath.trim() + "#" + fontName + ":" + values(view);
+    }
+    
+    /**
+     * PDF的创建时间：取发票的业务日期（未填写时取开票时间），不使用生成时的当前时间，
+     * 同一张发票重复生成时PDF内容逐字节一致（可使用同一个强ETag）
+     * 
+     * @param view 发票详情
+     * @return 创建时间，业务日期和开票时间都为空时返回null
+     */
+    public Date documentDate(InvoiceDetailView view) {
+        return view.getBusinessDate() != null ? view.getBusinessDate() : view.getCreateTime();
+    }
+    
+    /**
+     * 生成发票PDF
+     * 
+     * @param view 发票详情
+     * @param out 输出流（不关闭）
+     * @throws IOException 生成失败或等待字体实例超时
+     */
+    public void render(InvoiceDetailView view, OutputStream out) throws IOException {
+        Map<String, String> values = values(view);
+        FontInstance font = borrowFont();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(template.getWidth(), template.getHeight()));
+            document.addPage(page);
+            PDType0Font pdFont = PDType0Font.load(document, font.ttf, true);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.setLineWidth(template.getLineWidth());
+                for (PdfTemplate.Line line : template.getLines()) {
+                    content.moveTo(line.getX1(), line.getY1());
+                    content.lineTo(line.getX2(), line.getY2());
+                }
+                content.stroke();
+                for (PdfTemplate.Text label : template.getLabels()) {
+                    drawText(content, pdFont, font, label, label.getText());
+                }
+                for (PdfTemplate.Text field : template.getFields()) {
+                    drawText(content, pdFont, font, field, values.get(field.getKey()));
+                }
+            }
+            document.getDocumentInformation().setTitle(values.get("title"));
+            Date documentDate = documentDate(view);
+            if (documentDate != null) {
+                Calendar creationDate = Calendar.getInstance(DOCUMENT_TIME_ZONE);
+                creationDate.setTime(documentDate);
+                document.getDocumentInformation().setCreationDate(creationDate);
+            }
+            // 文档标识（trailer /ID）按内容来源生成；未设置时 PDFBox 按当前时间生成，每次输出都不同
+            COSString id = new COSString(DigestUtil.md5(contentSource(view)));
+            COSArray ids = new COSArray();
+            ids.add(id);
+            ids.add(id);
+            document.getDocument().getTrailer().setItem(COSName.ID, ids);
+            document.save(out);
+        } finally {
+            fonts.offer(font);
+        }
+    }
+    
+    /**
+     * 模板中可用的字段
+     */
+    private static Map<String, String> values(InvoiceDetailView view) {
+        Map<String, String> values = new LinkedHashMap<>();
+        String typeLabel = view.getInvoiceTypeLabel();
+        values.put("title", (typeLabel != null && !typeLabel.isEmpty() ? typeLabel : "医疗收费") + "电子票据");
+        values.put("invoiceCode", view.getInvoiceCode());
+        values.put("invoiceNo", view.getInvoiceNo());
+        values.put("checkCode", view.getCheckCode());
+        values.put("machineCode", view.getMachineCode());
+        values.put("rcptNo", view.getRcptNo());
+        values.put("businessDate", formatDate(view.getBusinessDate()));
+        values.put("patientName", view.getPatientName());
+        values.put("deptOrPackage", view.getDeptOrPackage());
+        values.put("amount", formatAmount(view.getAmount()));
+        values.put("insuranceAmount", formatAmount(view.getInsuranceAmount()));
+        values.put("selfPayAmount", formatAmount(view.getSelfPayAmount()));
+        values.put("totalAmount", formatAmount(view.getTotalAmount()));
+        values.put("totalAmountUpper", view.getTotalAmount() != null
+                ? Convert.digitToChinese(view.getTotalAmount().setScale(2, RoundingMode.HALF_UP)) : null);
+        values.put("statusLabel", view.getStatusLabel());
+        values.put("remark", view.getRemark());
+        return values;
+    }
+    
+    private void drawText(PDPageContentStream content, PDType0Font pdFont, FontInstance font,
+                          PdfTemplate.Text item, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        String text = font.printable(value);
+        float scale = item.getSize() / 1000f;
+        // 逐个字符累加宽度，超出最大宽度时截断
+        float width = 0;
+        int end = 0;
+        while (end < text.length()) {
+            int next = text.offsetByCodePoints(end, 1);
+            float charWidth = pdFont.getStringWidth(text.substring(end, next)) * scale;
+            if (item.getMaxWidth() > 0 && width + charWidth > item.getMaxWidth()) {
+                break;
+            }
+            width += charWidth;
+            end = next;
+        }
+        if (end < text.length()) {
+            text = text.substring(0, end);
+        }
+        float x = item.getX();
+        if (item.getAlign() == PdfTemplate.Text.Align.CENTER) {
+            x -= width / 2;
+        } else if (item.getAlign() == PdfTemplate.Text.Align.RIGHT) {
+            x -= width;
+        }
+        content.beginText();
+        content.setFont(pdFont, item.getSize());
+        content.newLineAtOffset(x, item.getY());
+        content.showText(text);
+        content.endText();
+    }
+    
+    private FontInstance borrowFont() throws IOException {
+        try {
+            FontInstance font = fonts.poll(fontWaitMs, TimeUnit.MILLISECONDS);
+            if (font == null) {
+                throw new IOException("等待PDF生成字体超时");
+            }
+            return font;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待PDF生成字体被中断");
+        }
+    }
+    
+    private FontInstance loadFont(File file) throws IOException {
+        if (file.getName().toLowerCase().endsWith(".ttc")) {
+            TrueTypeCollection collection = new TrueTypeCollection(file);
+            TrueTypeFont ttf = null;
+            if (fontName != null && !fontName.trim().isEmpty()) {
+                ttf = collection.getFontByName(fontName.trim());
+            } else {
+                TrueTypeFont[] first = new TrueTypeFont[1];
+                collection.processAllFonts(font -> {
+                    if (first[0] == null) {
+                        first[0] = font;
+                    }
+                });
+                ttf = first[0];
+            }
+            if (ttf == null) {
+                collection.close();
+                throw new IOException("字体集合中没有字体：" + fontName);
+            }
+            return new FontInstance(ttf, collection);
+        }
+        return new FontInstance(new TTFParser().parse(file), null);
+    }
+    
+    private static String formatAmount(BigDecimal amount) {
+        return amount != null ? "¥" + amount.setScale(2, RoundingMode.HALF_UP).toPlainString() : null;
+    }
+    
+    private static String formatDate(Date date) {
+        return date != null ? new SimpleDateFormat("yyyy-MM-dd").format(date) : null;
+    }
+    
+    /**
+     * 已解析的字体（同一时间只由一个线程使用）
+     */
+    private static final class FontInstance {
+        
+        private final TrueTypeFont ttf;
+        
+        /**
+         * 字体集合（.ttc），关闭时一起关闭
+         */
+        private final TrueTypeCollection collection;
+        
+        private final CmapLookup cmap;
+        
+        FontInstance(TrueTypeFont ttf, TrueTypeCollection collection) throws IOException {
+            this.ttf = ttf;
+            this.collection = collection;
+            this.cmap = ttf.getUnicodeCmapLookup();
+        }
+        
+        /**
+         * 替换字体中没有的字符和控制字符
+         */
+        String printable(String value) {
+            StringBuilder text = new StringBuilder(value.length());
+            value.codePoints().forEach(codePoint -> {
+                if (Character.isISOControl(codePoint) || cmap.getGlyphId(codePoint) == 0) {
+                    text.append(Character.isWhitespace(codePoint) ? ' ' : MISSING_GLYPH);
+                } else {
+                    text.appendCodePoint(codePoint);
+                }
+            });
+            return text.toString();
+        }
+        
+        void close() throws IOException {
+            if (collection != null) {
+                collection.close();
+            } else {
+                ttf.close();
+            }
+        }
+    }
+}
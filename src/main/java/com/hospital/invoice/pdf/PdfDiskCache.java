@@ -0,0 +1,696 @@
+package com.hospital.invoice.pdf;
+
+import cn.hutool.core.util.HexUtil;
+import com.hospital.invoice.common.BusinessException;
+import com.hospital.invoice.common.RetryLaterException;
+import com.hospital.invoice.util.ContentVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 发票PDF磁盘缓存
+ * 远程PDF（电子发票平台、文件服务器）首次下载后、本地生成的PDF首次生成后保存到本地磁盘，
+ * 之后直接按本地文件输出（sendfile、断点续传）
+ * 
+ * 文件命名：{发票ID哈希}-{来源哈希}-{内容哈希}.pdf
+ * 1. 发票ID哈希：SHA-256(发票ID)，每张发票只保留一个文件
+ * 2. 来源哈希：SHA-256(来源) 前16位，来源为远程文件的 PDF_URL 或本地生成时的模板和字段内容，
+ *    来源变化（如冲红后重开、发票信息修改）时视为未命中，重新下载或生成并替换旧文件
+ *    远程服务器可能在同一地址下更新文件内容，地址不变时无法发现，因此缓存文件超过 ttl-seconds 后
+ *    同样视为未命中、重新下载（不做 ETag / Last-Modified 条件校验，文件服务器不保证提供）
+ * 3. 内容哈希：SHA-256(文件内容)，下载时边写边计算；输出时据此生成强ETag，重新下载或生成的内容相同时ETag不变
+ * 
+ * 说明：
+ * 1. 按总字节数限制容量，超出后按最近访问时间淘汰（LRU）
+ * 2. 先写入临时文件（.tmp），下载完成后原子重命名为正式文件名，读取方不会看到写了一半的文件
+ * 3. 同一文件同时只下载一次：并发请求等待第一个请求的下载结果；下载和生成在 PdfWorkerPool 中执行，
+ *    所有等待的请求线程最多阻塞 invoice.pdf.worker.timeout-ms，超时不取消下载
+ * 4. 启动时扫描缓存目录恢复索引（按文件修改时间恢复访问顺序），删除上次异常退出留下的临时文件；
+ *    恢复时不重新计算内容哈希
+ * 5. 被替换、淘汰、失效的文件不立即删除，延迟 delete-delay-seconds 后再删除：
+ *    返回给请求的文件由 Tomcat 在控制器返回之后才打开（sendfile），立即删除会导致正在进行的下载失败；
+ *    到期时文件已重新登记为有效缓存（内容相同的文件重新生成）则不删除
+ * 6. 缓存目录本身的读写失败抛出 StorageException，调用方可以绕过缓存；
+ *    下载远程文件失败（连接失败、超时、服务器错误）抛出 BusinessException，绕过缓存重试同样会失败，直接返回错误
+ */
+@Component
+public class PdfDiskCache {
+    
+    private static final Logger log = LoggerFactory.getLogger(PdfDiskCache.class);
+    
+    private static final String PDF_SUFFIX = ".pdf";
+    
+    private static final String TEMP_SUFFIX = ".tmp";
+    
+    private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f]{64})-([0-9a-f]{16})-([0-9a-f]{64})\\.pdf");
+    
+    /**
+     * 是否启用缓存
+     */
+    @Value("${invoice.pdf.cache.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 缓存目录
+     */
+    @Value("${invoice.pdf.cache.dir:${java.io.tmpdir}/invoice-pdf-cache}")
+    private String dir;
+    
+    /**
+     * 缓存总字节数上限
+     */
+    @Value("${invoice.pdf.cache.max-bytes:1073741824}")
+    private long maxBytes;
+    
+    /**
+     * 缓存文件有效期（秒），从下载或生成完成时开始计算，0表示不过期
+     */
+    @Value("${invoice.pdf.cache.ttl-seconds:86400}")
+    private long ttlSeconds;
+    
+    /**
+     * 被替换、淘汰、失效的文件延迟删除的时间（秒），需大于从查询缓存到开始输出文件的时间
+     */
+    @Value("${invoice.pdf.cache.delete-delay-seconds:60}")
+    private long deleteDelaySeconds;
+    
+    /**
+     * 下载远程文件的缓冲区大小（字节）、连接超时、读取超时（毫秒），与直接转发远程文件使用相同配置
+     */
+    @Value("${invoice.pdf.remote.buffer-bytes:16384}")
+    private int remoteBufferBytes;
+    
+    @Value("${invoice.pdf.remote.connect-timeout-ms:3000}")
+    private int remoteConnectTimeoutMs;
+    
+    @Value("${invoice.pdf.remote.read-timeout-ms:10000}")
+    private int remoteReadTimeoutMs;
+    
+    @Autowired
+    private PdfWorkerPool pdfWorkerPool;
+    
+    private Path root;
+    
+    /**
+     * 发票ID哈希 -> 缓存文件，按访问顺序排列（最久未访问的在前），由 this 保护
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    
+    /**
+     * 缓存文件总字节数，由 this 保护
+     */
+    private long totalBytes;
+    
+    /**
+     * 正在下载的文件：发票ID哈希 + 来源哈希 -> 下载结果
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> fills = new ConcurrentHashMap<>();
+    
+    /**
+     * 等待删除的文件（按加入顺序，即到期顺序）
+     */
+    private final ConcurrentLinkedQueue<PendingDelete> pendingDeletes = new ConcurrentLinkedQueue<>();
+    
+    // 统计指标
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder fillCount = new LongAdder();
+    private final LongAdder fillFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder hitBytes = new LongAdder();
+    private final LongAdder fillBytes = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+    private final LongAdder deletedFiles = new LongAdder();
+    private volatile int recovered;
+    private volatile int tempFilesRemoved;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        recover();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * PDF内容写入（下载远程文件或本地生成）
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        
+        /**
+         * 写出PDF内容
+         * @param out 缓存临时文件的输出流
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+    
+    /**
+     * 缓存目录读写失败（磁盘已满、权限不足等），与PDF来源（远程服务器、本地生成）的错误区分开
+     */
+    public static class StorageException extends IOException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        public StorageException(String message, IOException cause) {
+            super(message + "：" + cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * 获取远程PDF的本地缓存文件，未命中时下载
+     * 
+     * @param invoiceId 发票ID
+     * @param remote 远程文件位置
+     * @return 本地文件位置
+     * @throws BusinessException 远程文件不存在（404）、服务器响应异常或连接失败（502）、响应超时（504）时抛出
+     * @throws RetryLaterException PDF线程池已满（429）或等待下载超时（503）
+     * @throws StorageException 写入缓存目录失败
+     * @throws IOException 等待下载被中断
+     */
+    public InvoicePdf get(String invoiceId, InvoicePdf remote) throws IOException {
+        return get(invoiceId, remote.getUrl().toString(), out -> fetch(remote, out));
+    }
+    
+    /**
+     * 获取PDF的本地缓存文件，未命中时调用 writer 写出内容
+     * 
+     * @param invoiceId 发票ID
+     * @param source PDF来源（来源变化时重新写出）
+     * @param writer PDF内容写入
+     * @return 本地文件位置
+     * @throws RetryLaterException PDF线程池已满（429）或等待写出超时（503）
+     * @throws StorageException 写入缓存目录失败
+     * @throws IOException writer 写出内容失败
+     */
+    public InvoicePdf get(String invoiceId, String source, ContentWriter writer) throws IOException {
+        String key = sha256Hex(invoiceId);
+        String tag = sha256Hex(source).substring(0, 16);
+        Entry entry = lookup(key, tag, true);
+        if (entry != null) {
+            hits.increment();
+            hitBytes.add(entry.size);
+            return entry.toPdf();
+        }
+        misses.increment();
+        
+        CompletableFuture<Entry> fill = new CompletableFuture<>();
+        CompletableFuture<Entry> running = fills.putIfAbsent(key + tag, fill);
+        if (running != null) {
+            waits.increment();
+            return pdfWorkerPool.await(running).toPdf();
+        }
+        try {
+            // 上一次下载可能在查询缓存之后刚刚完成
+            entry = lookup(key, tag, false);
+            if (entry != null) {
+                fill.complete(entry);
+                fills.remove(key + tag, fill);
+                return entry.toPdf();
+            }
+            // 下载或生成在PDF线程池中执行，由任务自身登记结果并结束本次下载；
+            // 请求线程等待超时（503）后任务仍会完成并登记，期间的并发请求继续等待同一任务，重试时可直接命中
+            pdfWorkerPool.submit(() -> {
+                try {
+                    Entry filled = fill(key, tag, writer);
+                    register(filled);
+                    fill.complete(filled);
+                    return filled;
+                } catch (IOException | RuntimeException e) {
+                    fillFailures.increment();
+                    fill.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    fills.remove(key + tag, fill);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 线程池已满（429），任务未提交
+            fill.completeExceptionally(e);
+            fills.remove(key + tag, fill);
+            throw e;
+        }
+        return pdfWorkerPool.await(fill).toPdf();
+    }
+    
+    /**
+     * 删除某张发票的缓存文件
+     * 
+     * @param invoiceId 发票ID
+     */
+    public void invalidateInvoice(String invoiceId) {
+        if (!enabled || invoiceId == null) {
+            return;
+        }
+        Entry removed;
+        synchronized (this) {
+            removed = entries.remove(sha256Hex(invoiceId));
+            if (removed != null) {
+                totalBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            deleteLater(removed.path);
+        }
+    }
+    
+    /**
+     * 删除全部缓存文件
+     */
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        List<Entry> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(entries.values());
+            entries.clear();
+            totalBytes = 0;
+        }
+        for (Entry entry : removed) {
+            deleteLater(entry.path);
+        }
+    }
+    
+    /**
+     * 删除到期的文件（定时执行）
+     */
+    @Scheduled(fixedDelayString = "${invoice.pdf.cache.delete-check-interval-ms:10000}")
+    public void purgeDeleted() {
+        purge(System.currentTimeMillis());
+    }
+    
+    /**
+     * 停止时删除全部等待删除的文件（此时已不再输出文件），避免下次启动时被恢复为有效缓存
+     */
+    @PreDestroy
+    public void shutdown() {
+        purge(Long.MAX_VALUE);
+    }
+    
+    /**
+     * 缓存统计指标
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    public Map<String, Object> stats() {
+        long total = hits.sum() + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("dir", root != null ? root.toString() : dir);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", total > 0 ? (double) hits.sum() / total : 0.0);
+        stats.put("expired", expired.sum());
+        stats.put("waits", waits.sum());
+        stats.put("fills", fillCount.sum());
+        stats.put("fillFailures", fillFailures.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("hitBytes", hitBytes.sum());
+        stats.put("fillBytes", fillBytes.sum());
+        stats.put("evictedBytes", evictedBytes.sum());
+        stats.put("pendingDeletes", pendingDeletes.size());
+        stats.put("deletedFiles", deletedFiles.sum());
+        stats.put("inflight", fills.size());
+        stats.put("recovered", recovered);
+        stats.put("tempFilesRemoved", tempFilesRemoved);
+        synchronized (this) {
+            stats.put("size", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+    
+    /**
+     * 查找来源相同且未过期的缓存文件；过期的文件保留在索引中，重新下载或生成后被替换
+     * @param countExpired 是否计入过期统计（同一请求的再次查找不重复计数）
+     */
+    private synchronized Entry lookup(String key, String tag, boolean countExpired) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.tag.equals(tag)) {
+            return null;
+        }
+        if (ttlSeconds > 0 && System.currentTimeMillis() - entry.lastModified > ttlSeconds * 1000) {
+            if (countExpired) {
+                expired.increment();
+            }
+            return null;
+        }
+        return entry;
+    }
+    
+    /**
+     * 写出到临时文件，计算内容哈希后原子重命名为正式文件
+     * 临时文件的创建、写入、重命名失败统一转换为 StorageException；writer 自身的异常原样抛出
+     */
+    private Entry fill(String key, String tag, ContentWriter writer) throws IOException {
+        Path temp;
+        try {
+            temp = Files.createTempFile(root, key.substring(0, 16) + "-", TEMP_SUFFIX);
+        } catch (IOException e) {
+            throw new StorageException("创建PDF缓存临时文件失败", e);
+        }
+        try {
+            MessageDigest digest = sha256();
+            CountingOutputStream counter;
+            try (OutputStream out = new DigestOutputStream(new StorageOutputStream(temp), digest)) {
+                counter = new CountingOutputStream(out);
+                writer.writeTo(counter);
+            }
+            String contentHash = HexUtil.encodeHexStr(digest.digest());
+            Path target = root.resolve(key + "-" + tag + "-" + contentHash + PDF_SUFFIX);
+            long lastModified;
+            try {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                temp = null;
+                lastModified = Files.getLastModifiedTime(target).toMillis();
+            } catch (IOException e) {
+                throw new StorageException("保存PDF缓存文件失败", e);
+            }
+            fillCount.increment();
+            fillBytes.add(counter.count);
+            return new Entry(key, tag, contentHash, target, counter.count, lastModified);
+        } finally {
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+    
+    /**
+     * 下载远程文件
+     * 连接、读取远程文件失败转换为 BusinessException（502，超时为504）；写入缓存文件失败（StorageException）原样抛出
+     */
+    private void fetch(InvoicePdf remote, OutputStream out) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) remote.getUrl().openConnection();
+        connection.setConnectTimeout(remoteConnectTimeoutMs);
+        connection.setReadTimeout(remoteReadTimeoutMs);
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new BusinessException(404, "发票PDF文件不存在");
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new BusinessException(502, "PDF文件服务器响应异常：" + status);
+            }
+            byte[] buffer = new byte[remoteBufferBytes];
+            try (InputStream in = connection.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        } catch (StorageException e) {
+            throw e;
+        } catch (SocketTimeoutException e) {
+            log.warn("下载远程PDF超时：{} - {}", remote.getUrl(), e.getMessage());
+            throw new BusinessException(504, "PDF文件服务器响应超时");
+        } catch (IOException e) {
+            log.warn("下载远程PDF失败：{} - {}", remote.getUrl(), e.toString());
+            throw new BusinessException(502, "PDF文件服务器连接失败");
+        } finally {
+            connection.disconnect();
+        }
+    }
+    
+    /**
+     * 登记新文件，替换该发票的旧文件，超出容量时淘汰最久未访问的文件（不淘汰刚登记的文件）
+     */
+    private void register(Entry entry) {
+        List<Path> toDelete = new ArrayList<>();
+        synchronized (this) {
+            Entry old = entries.put(entry.key, entry);
+            if (old != null) {
+                totalBytes -= old.size;
+                if (!old.path.equals(entry.path)) {
+                    toDelete.add(old.path);
+                }
+            }
+            totalBytes += entry.size;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Entry candidate = eldest.next();
+                if (candidate == entry) {
+                    continue;
+                }
+                eldest.remove();
+                totalBytes -= candidate.size;
+                evictions.increment();
+                evictedBytes.add(candidate.size);
+                toDelete.add(candidate.path);
+            }
+        }
+        for (Path path : toDelete) {
+            deleteLater(path);
+        }
+    }
+    
+    private void deleteLater(Path path) {
+        pendingDeletes.add(new PendingDelete(path, System.currentTimeMillis() + deleteDelaySeconds * 1000));
+    }
+    
+    /**
+     * 删除到期的文件；文件已重新登记为有效缓存时跳过
+     */
+    private void purge(long now) {
+        PendingDelete pending;
+        while ((pending = pendingDeletes.peek()) != null && pending.dueAt <= now) {
+            if (!pendingDeletes.remove(pending)) {
+                continue;
+            }
+            if (!isRegistered(pending.path)) {
+                delete(pending.path);
+                deletedFiles.increment();
+            }
+        }
+    }
+    
+    private synchronized boolean isRegistered(Path path) {
+        // 遍历而不是按发票ID哈希 get，不改变访问顺序
+        for (Entry entry : entries.values()) {
+            if (entry.path.equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 扫描缓存目录恢复索引
+     */
+    private void recover() throws IOException {
+        List<Entry> found = new ArrayList<>();
+        int temps = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    delete(file);
+                    temps++;
+                    continue;
+                }
+                Matcher matcher = FILE_NAME.matcher(name);
+                if (!matcher.matches() || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                found.add(new Entry(matcher.group(1), matcher.group(2), matcher.group(3), file, Files.size(file),
+                        Files.getLastModifiedTime(file).toMillis()));
+            }
+        }
+        // 按修改时间从旧到新登记，同一发票的多个文件只保留最新的一个
+        found.sort(Comparator.comparingLong(entry -> entry.lastModified));
+        for (Entry entry : found) {
+            register(entry);
+        }
+        synchronized (this) {
+            this.recovered = entries.size();
+        }
+        this.tempFilesRemoved = temps;
+        log.info("PDF磁盘缓存索引恢复完成：{}个文件，{}字节，清理临时文件{}个", recovered, totalBytes(), temps);
+    }
+    
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+    
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除PDF缓存文件失败：{} - {}", path, e.getMessage());
+        }
+    }
+    
+    private static String sha256Hex(String value) {
+        return HexUtil.encodeHexStr(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 缓存临时文件输出流：打开、写入、关闭失败转换为 StorageException
+     */
+    private static final class StorageOutputStream extends OutputStream {
+        
+        private final OutputStream out;
+        
+        StorageOutputStream(Path file) throws StorageException {
+            try {
+                this.out = Files.newOutputStream(file);
+            } catch (IOException e) {
+                throw new StorageException("打开PDF缓存临时文件失败", e);
+            }
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                throw new StorageException("写入PDF缓存临时文件失败", e);
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                throw new StorageException("写入PDF缓存临时文件失败", e);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new StorageException("写入PDF缓存临时文件失败", e);
+            }
+        }
+    }
+    
+    /**
+     * 统计写出字节数
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        
+        private long count;
+        
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+    
+    /**
+     * 等待删除的文件
+     */
+    private static final class PendingDelete {
+        
+        private final Path path;
+        
+        private final long dueAt;
+        
+        PendingDelete(Path path, long dueAt) {
+            this.path = path;
+            this.dueAt = dueAt;
+        }
+    }
+    
+    /**
+     * 缓存文件
+     */
+    private static final class Entry {
+        
+        private final String key;
+        
+        private final String tag;
+        
+        private final String contentHash;
+        
+        private final Path path;
+        
+        private final long size;
+        
+        private final long lastModified;
+        
+        Entry(String key, String tag, String contentHash, Path path, long size, long lastModified) {
+            this.key = key;
+            this.tag = tag;
+            this.contentHash = contentHash;
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+        
+        InvoicePdf toPdf() {
+            return InvoicePdf.local(path, size, lastModified, ContentVersion.forContent(contentHash));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hospital.invoice.pdf;
+
+import com.hospital.invoice.common.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 发票PDF文件定位
+ * 把详情视图中的 PDF_URL 解析为本地文件或远程地址
+ * 
+ * 解析规则：
+ * 1. http:// 或 https:// 开头：远程文件
+ * 2. file: 开头或普通路径：本地文件；配置了存储目录（invoice.pdf.storage.path）时，
+ *    相对路径在存储目录下解析，且解析后的路径必须位于存储目录内（防止路径穿越）
+ */
+@Component
+public class PdfLocator {
+    
+    /**
+     * PDF文件存储目录（为空时 PDF_URL 必须是绝对路径）
+     */
+    @Value("${invoice.pdf.storage.path:}")
+    private String storagePath;
+    
+    /**
+     * 解析PDF文件位置
+     * 
+     * @param pdfUrl 详情视图中的 PDF_URL
+     * @return 文件位置
+     * @throws BusinessException 文件不存在或地址不合法时抛出（错误码404）
+     */
+    public InvoicePdf locate(String pdfUrl) {
+        if (pdfUrl == null || pdfUrl.trim().isEmpty()) {
+            throw notFound();
+        }
+        String location = pdfUrl.trim();
+        String lower = location.toLowerCase();
+        if (lower.startsWith("http://") || lower.startsWith("https://")) {
+            try {
+                return InvoicePdf.remote(new URL(location));
+            } catch (MalformedURLException e) {
+                throw notFound();
+            }
+        }
+        Path file = resolveLocal(location);
+        try {
+            if (!Files.isRegularFile(file)) {
+                throw notFound();
+            }
+            return InvoicePdf.local(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            throw notFound();
+        }
+    }
+    
+    private Path resolveLocal(String location) {
+        Path path;
+        try {
+            path = location.toLowerCase().startsWith("file:") ? Paths.get(URI.create(location)) : Paths.get(location);
+        } catch (IllegalArgumentException e) {
+            // 包括 InvalidPathException
+            throw notFound();
+        }
+        if (storagePath == null || storagePath.trim().isEmpty()) {
+            if (!path.isAbsolute()) {
+                throw notFound();
+            }
+            return path.normalize();
+        }
+        Path root = Paths.get(storagePath.trim()).toAbsolutePath().normalize();
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            throw notFound();
+        }
+        return resolved;
+    }
+    
+    private static BusinessException notFound() {
+        return new BusinessException(404, "发票PDF文件不存在");
+    }
+}
@@ -0,0 +1,234 @@
+package com.hospital.invoice.pdf;
+
+import com.hospital.invoice.common.BusinessException;
+import com.hospital.invoice.util.ContentVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 发票PDF输出
+ * 把PDF文件直接写入HTTP响应，文件内容不整体读入内存，并发下载时堆内存占用不随文件大小增长
+ * 
+ * 输出方式：
+ * 1. 本地文件且容器支持 sendfile（Tomcat NIO 连接器默认支持）：只设置请求属性，
+ *    由Tomcat在接口返回后用 sendfile 从文件直接发送到网络，不经过JVM堆
+ * 2. 本地文件但不能 sendfile（文件较小或容器不支持）：FileChannel.transferTo 写入响应流
+ * 3. 远程文件：固定大小的缓冲区边读边写
+ * 4. 内存中的内容（本地生成且未启用磁盘缓存）：直接写入，与本地文件一样支持断点续传
+ * 
+ * 断点续传：
+ * 1. 本地文件响应 Accept-Ranges、强ETag（内容哈希，未知时为文件长度+修改时间）和 Last-Modified，
+ *    支持单个范围的 Range 请求（206）、If-Range 校验，以及 If-None-Match / If-Modified-Since（304）
+ * 2. 文件已变化（If-Range 不匹配）时忽略 Range 返回完整文件，范围超出文件长度返回416
+ * 3. 远程文件把 Range / If-Range 转发给文件服务器，原样返回其 206 / 416 响应
+ */
+@Component
+public class PdfStreamer {
+    
+    /**
+     * Tomcat sendfile 请求属性
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    /**
+     * 使用 sendfile 的最小文件大小（字节），更小的文件直接写入响应缓冲区更快
+     */
+    @Value("${invoice.pdf.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes;
+    
+    /**
+     * 读取远程文件的缓冲区大小（字节）
+     */
+    @Value("${invoice.pdf.remote.buffer-bytes:16384}")
+    private int remoteBufferBytes;
+    
+    /**
+     * 远程文件连接超时、读取超时（毫秒）
+     */
+    @Value("${invoice.pdf.remote.connect-timeout-ms:3000}")
+    private int remoteConnectTimeoutMs;
+    
+    @Value("${invoice.pdf.remote.read-timeout-ms:10000}")
+    private int remoteReadTimeoutMs;
+    
+    /**
+     * 输出PDF文件
+     * 
+     * @param pdf 文件位置
+     * @param fileName 下载文件名
+     * @param request HTTP请求（可带 Range / If-Range 等条件请求头）
+     * @param response HTTP响应
+     * @throws BusinessException 远程文件不存在或服务器响应异常时抛出（此时尚未写出响应）
+     * @throws IOException 写出过程中出错（如客户端断开）
+     */
+    public void write(InvoicePdf pdf, String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (pdf.isRemote()) {
+            writeRemote(pdf, fileName, request, response);
+        } else {
+            writeLocal(pdf, fileName, request, response);
+        }
+    }
+    
+    private void writeLocal(InvoicePdf pdf, String fileName, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        long length = pdf.getLength();
+        String eTag = pdf.getETag() != null ? pdf.getETag() : ContentVersion.forFile(length, pdf.getLastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // 同时写出 ETag、Last-Modified；未变化时已设置304（或前置条件不满足时412），不再输出内容
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, pdf.getLastModified())) {
+            return;
+        }
+        
+        ByteRange range = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, eTag, pdf.getLastModified())) {
+            try {
+                range = ByteRange.parse(rangeHeader, length);
+            } catch (ByteRange.UnsatisfiableException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+        long start = 0;
+        long count = length;
+        if (range != null) {
+            start = range.getStart();
+            count = range.length();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.toContentRange(length));
+        }
+        writeHeaders(response, fileName, count);
+        
+        if (pdf.getContent() != null) {
+            response.getOutputStream().write(pdf.getContent(), (int) start, (int) count);
+            return;
+        }
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, pdf.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            // 结束位置不包含
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(pdf.getFile(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long written = channel.transferTo(position, end - position, out);
+                if (written <= 0) {
+                    // 文件在定位之后被截断
+                    break;
+                }
+                position += written;
+            }
+        }
+    }
+    
+    private void writeRemote(InvoicePdf pdf, String fileName, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) pdf.getUrl().openConnection();
+        connection.setConnectTimeout(remoteConnectTimeoutMs);
+        connection.setReadTimeout(remoteReadTimeoutMs);
+        copyRequestHeader(request, connection, HttpHeaders.RANGE);
+        copyRequestHeader(request, connection, HttpHeaders.IF_RANGE);
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new BusinessException(404, "发票PDF文件不存在");
+            }
+            if (status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_PARTIAL
+                    && status != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                throw new BusinessException(502, "PDF文件服务器响应异常：" + status);
+            }
+            copyResponseHeader(connection, response, HttpHeaders.ACCEPT_RANGES);
+            copyResponseHeader(connection, response, HttpHeaders.ETAG);
+            copyResponseHeader(connection, response, HttpHeaders.LAST_MODIFIED);
+            copyResponseHeader(connection, response, HttpHeaders.CONTENT_RANGE);
+            if (status != HttpURLConnection.HTTP_OK) {
+                response.setStatus(status);
+            }
+            if (status == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                return;
+            }
+            writeHeaders(response, fileName, connection.getContentLengthLong());
+            byte[] buffer = new byte[remoteBufferBytes];
+            try (InputStream in = connection.getInputStream()) {
+                OutputStream out = response.getOutputStream();
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+    
+    /**
+     * If-Range 校验：未携带时 Range 有效；携带时ETag（强比较）或修改时间（精确到秒）一致才有效
+     * 修改时间未知（-1）时日期形式的 If-Range 一律视为不一致
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private static void copyRequestHeader(HttpServletRequest request, HttpURLConnection connection, String name) {
+        String value = request.getHeader(name);
+        if (value != null) {
+            connection.setRequestProperty(name, value);
+        }
+    }
+    
+    private static void copyResponseHeader(HttpURLConnection connection, HttpServletResponse response, String name) {
+        String value = connection.getHeaderField(name);
+        if (value != null) {
+            response.setHeader(name, value);
+        }
+    }
+    
+    private static void writeHeaders(HttpServletResponse response, String fileName, long length) {
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName).build().toString());
+        if (length >= 0) {
+            response.setContentLengthLong(length);
+        }
+    }
+}
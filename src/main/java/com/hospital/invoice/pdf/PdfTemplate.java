@@ -0,0 +1,248 @@
+package com.hospital.invoice.pdf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 发票PDF版式模板
+ * 从JSON模板文件（invoice.pdf.render.template）解析，启动时解析一次，生成PDF时只读使用
+ * 
+ * 说明：
+ * 1. 坐标单位为点（1/72英寸），原点在页面左下角
+ * 2. labels 为固定文字，fields 为发票字段（key 对应 InvoicePdfRenderer 中的字段名）
+ * 3. 模板内容变化时修改 name，已缓存的PDF随之重新生成
+ */
+public class PdfTemplate {
+    
+    /**
+     * 模板名称（含版本）
+     */
+    private String name;
+    
+    /**
+     * 页面宽度、高度
+     */
+    private float width;
+    
+    private float height;
+    
+    /**
+     * 线条宽度
+     */
+    private float lineWidth = 0.8f;
+    
+    /**
+     * 线条（表格框线）
+     */
+    private List<Line> lines = new ArrayList<>();
+    
+    /**
+     * 固定文字
+     */
+    private List<Text> labels = new ArrayList<>();
+    
+    /**
+     * 发票字段
+     */
+    private List<Text> fields = new ArrayList<>();
+    
+    // 无参构造函数
+    public PdfTemplate() {
+    }
+    
+    // Getter 和 Setter 方法
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public float getWidth() {
+        return width;
+    }
+    
+    public void setWidth(float width) {
+        this.width = width;
+    }
+    
+    public float getHeight() {
+        return height;
+    }
+    
+    public void setHeight(float height) {
+        this.height = height;
+    }
+    
+    public float getLineWidth() {
+        return lineWidth;
+    }
+    
+    public void setLineWidth(float lineWidth) {
+        this.lineWidth = lineWidth;
+    }
+    
+    public List<Line> getLines() {
+        return lines;
+    }
+    
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+    
+    public List<Text> getLabels() {
+        return labels;
+    }
+    
+    public void setLabels(List<Text> labels) {
+        this.labels = labels;
+    }
+    
+    public List<Text> getFields() {
+        return fields;
+    }
+    
+    public void setFields(List<Text> fields) {
+        this.fields = fields;
+    }
+    
+    /**
+     * 线条
+     */
+    public static class Line {
+        
+        private float x1;
+        
+        private float y1;
+        
+        private float x2;
+        
+        private float y2;
+        
+        public float getX1() {
+            return x1;
+        }
+        
+        public void setX1(float x1) {
+            this.x1 = x1;
+        }
+        
+        public float getY1() {
+            return y1;
+        }
+        
+        public void setY1(float y1) {
+            this.y1 = y1;
+        }
+        
+        public float getX2() {
+            return x2;
+        }
+        
+        public void setX2(float x2) {
+            this.x2 = x2;
+        }
+        
+        public float getY2() {
+            return y2;
+        }
+        
+        public void setY2(float y2) {
+            this.y2 = y2;
+        }
+    }
+    
+    /**
+     * 文字（固定文字使用 text，发票字段使用 key）
+     */
+    public static class Text {
+        
+        /**
+         * 对齐方式：LEFT-x为左端，CENTER-x为中点，RIGHT-x为右端
+         */
+        public enum Align {
+            LEFT, CENTER, RIGHT
+        }
+        
+        private float x;
+        
+        /**
+         * 基线位置
+         */
+        private float y;
+        
+        /**
+         * 字号
+         */
+        private float size = 10;
+        
+        private Align align = Align.LEFT;
+        
+        /**
+         * 最大宽度，超出部分截断（0表示不限制）
+         */
+        private float maxWidth;
+        
+        private String text;
+        
+        private String key;
+        
+        public float getX() {
+            return x;
+        }
+        
+        public void setX(float x) {
+            this.x = x;
+        }
+        
+        public float getY() {
+            return y;
+        }
+        
+        public void setY(float y) {
+            this.y = y;
+        }
+        
+        public float getSize() {
+            return size;
+        }
+        
+        public void setSize(float size) {
+            this.size = size;
+        }
+        
+        public Align getAlign() {
+            return align;
+        }
+        
+        public void setAlign(Align align) {
+            this.align = align;
+        }
+        
+        public float getMaxWidth() {
+            return maxWidth;
+        }
+        
+        public void setMaxWidth(float maxWidth) {
+            this.maxWidth = maxWidth;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public void setText(String text) {
+            this.text = text;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public void setKey(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.hospital.invoice.pdf;
+
+import com.hospital.invoice.common.RetryLaterException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PDF生成/下载线程池
+ * 本地生成PDF、从远程下载PDF在独立的有界线程池中执行，请求线程只等待结果，
+ * 下载量突增时不会占满Tomcat线程，影响 /list、/detail 等接口
+ * 
+ * 说明：
+ * 1. 线程数和等待队列长度都有上限，队列已满时立即拒绝（RetryLaterException，错误码429），
+ *    响应头 Retry-After 按当前排队数和平均处理耗时估算
+ * 2. 等待超过 invoice.pdf.worker.timeout-ms 时返回503（同样带 Retry-After）；不中断执行中的任务：
+ *    中断会关闭正在写入的文件通道（ClosedByInterruptException），磁盘缓存的下载只能作废重来
+ * 3. 请求线程在等待期间仍然阻塞（同步接口，不释放Tomcat线程），阻塞的请求线程数上限：
+ *    排队和执行中的任务最多 threads + queue-capacity 个，每个任务对应一个等待的请求线程，
+ *    另加磁盘缓存中等待同一文件下载结果的请求线程（见 PdfDiskCache）；每个请求线程最多阻塞 timeout-ms，
+ *    因此 threads + queue-capacity 应明显小于 Tomcat 的 server.tomcat.threads.max
+ * 4. 磁盘缓存命中和PDF输出（sendfile）不经过线程池
+ */
+@Component
+public class PdfWorkerPool {
+    
+    /**
+     * Retry-After 的上下限（秒）
+     */
+    private static final long MIN_RETRY_AFTER_SECONDS = 1;
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+    
+    /**
+     * 线程数，0表示CPU核数
+     */
+    @Value("${invoice.pdf.worker.threads:0}")
+    private int threads;
+    
+    /**
+     * 等待队列长度
+     */
+    @Value("${invoice.pdf.worker.queue-capacity:50}")
+    private int queueCapacity;
+    
+    /**
+     * 请求线程等待结果的最长时间（毫秒），超时后任务继续执行
+     */
+    @Value("${invoice.pdf.worker.timeout-ms:30000}")
+    private long timeoutMs;
+    
+    private ThreadPoolExecutor executor;
+    
+    // 统计指标
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+    private final LongAccumulator maxServiceNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-worker-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * 在线程池中执行任务并等待结果
+     * 等待超时后尚未开始执行的任务被取消，已开始执行的任务继续执行完毕（结果丢弃）
+     * 
+     * @param task PDF生成或下载任务
+     * @return 任务结果
+     * @throws RetryLaterException 线程池已满（429）或等待超时（503）
+     * @throws IOException 任务抛出的IO异常
+     */
+    public <T> T call(Callable<T> task) throws IOException {
+        CompletableFuture<T> future = submit(task);
+        try {
+            return await(future);
+        } catch (RetryLaterException | InterruptedIOException e) {
+            // 只取消排队中的任务，不中断执行中的任务
+            future.cancel(false);
+            throw e;
+        }
+    }
+    
+    /**
+     * 提交任务，不等待结果
+     * 返回的 Future 取消后，尚未开始执行的任务不再执行；已开始执行的任务不受影响
+     * 
+     * @param task PDF生成或下载任务
+     * @return 任务结果
+     * @throws RetryLaterException 线程池已满（429）
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        long enqueued = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                long started = System.nanoTime();
+                queueWaitNanos.add(started - enqueued);
+                try {
+                    future.complete(task.call());
+                    completed.increment();
+                } catch (Throwable e) {
+                    failed.increment();
+                    future.completeExceptionally(e);
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    serviceNanos.add(elapsed);
+                    maxServiceNanos.accumulate(elapsed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RetryLaterException(429, "PDF生成繁忙，请稍后重试", retryAfterSeconds());
+        }
+        submitted.increment();
+        maxQueueDepth.accumulate(executor.getQueue().size());
+        return future;
+    }
+    
+    /**
+     * 等待任务结果，最多等待 timeout-ms；超时不取消任务
+     * 
+     * @param future submit 返回的任务结果
+     * @return 任务结果
+     * @throws RetryLaterException 等待超时（503）
+     * @throws IOException 任务抛出的IO异常
+     */
+    public <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new RetryLaterException(503, "PDF生成超时，请稍后重试", retryAfterSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待PDF生成被中断");
+        } catch (CancellationException e) {
+            throw new RetryLaterException(503, "PDF生成已取消，请稍后重试", retryAfterSeconds());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    
+    /**
+     * 线程池统计指标
+     * 
+     * @return 指标名称 -> 指标值
+     */
+    public Map<String, Object> stats() {
+        long serviced = executor.getCompletedTaskCount();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("maxQueueDepth", maxQueueDepth.get());
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("avgQueueWaitMs", serviced > 0 ? queueWaitNanos.sum() / (double) serviced / 1e6 : 0.0);
+        stats.put("avgServiceMs", serviced > 0 ? serviceNanos.sum() / (double) serviced / 1e6 : 0.0);
+        stats.put("maxServiceMs", maxServiceNanos.get() / 1e6);
+        stats.put("retryAfterSeconds", retryAfterSeconds());
+        return stats;
+    }
+    
+    /**
+     * 估算重试间隔：排队中和执行中的任务按平均处理耗时全部完成所需的时间
+     */
+    private long retryAfterSeconds() {
+        long serviced = executor.getCompletedTaskCount();
+        if (serviced == 0) {
+            return MIN_RETRY_AFTER_SECONDS;
+        }
+        double avgServiceMs = serviceNanos.sum() / (double) serviced / 1e6;
+        long pending = executor.getQueue().size() + executor.getActiveCount();
+        double seconds = pending * avgServiceMs / executor.getMaximumPoolSize() / 1000;
+        return Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(MIN_RETRY_AFTER_SECONDS, (long) Math.ceil(seconds)));
+    }
+}
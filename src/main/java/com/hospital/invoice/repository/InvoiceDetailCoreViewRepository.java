@@ -0,0 +1,30 @@
+package com.hospital.invoice.repository;
+
+import com.hospital.invoice.entity.view.InvoiceDetailCoreView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 发票详情核心字段数据访问接口
+ * 对应数据库视图：comm.invoice_detail_view（只查询核心字段）
+ * 
+ * 说明：
+ * 1. 用于权限校验，查出的实体同时用于发送邮件、下载PDF
+ * 2. 权限校验查询不使用查询缓存（空结果的缓存时间由否定查询缓存统一控制）
+ */
+@Repository
+public interface InvoiceDetailCoreViewRepository extends JpaRepository<InvoiceDetailCoreView, String> {
+    
+    /**
+     * 根据发票ID和患者ID查询核心字段（带权限校验）
+     * 不使用查询缓存：查询缓存会把“查不到”也缓存下来，且过期时间与否定查询缓存不一致；
+     * 查不到的结果由否定查询缓存按其过期时间处理，查到的结果由详情缓存处理
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @return 发票核心字段
+     */
+    Optional<InvoiceDetailCoreView> findByInvoiceIdAndPatientId(String invoiceId, String patientId);
+}
@@ -1,11 +1,16 @@
 package com.hospital.invoice.repository;
 
+import com.hospital.invoice.cache.CacheRegions;
 import com.hospital.invoice.entity.view.InvoiceDetailView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,6 +21,7 @@ import java.util.Optional;
  * 1. 继承 JpaRepository 提供基础的CRUD方法
  * 2. 视图是只读的，只能查询不能修改
  * 3. 主要用于根据发票ID查询详情
+ * 4. 派生查询启用查询缓存（Hibernate二级缓存），权限校验查询和原生SQL查询不缓存
  */
 @Repository
 public interface InvoiceDetailViewRepository extends JpaRepository<InvoiceDetailView, String> {
@@ -27,11 +33,16 @@ public interface InvoiceDetailViewRepository extends JpaRepository<InvoiceDetail
      * @param invoiceId 发票ID
      * @return 发票详情（Optional包装，可能为空）
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheRegions.DETAIL_QUERY)
+    })
     Optional<InvoiceDetailView> findByInvoiceId(String invoiceId);
     
     /**
      * 根据发票ID和患者ID查询详情（带权限校验）
      * 确保患者只能查看自己的发票
+     * 不使用查询缓存（原因同 InvoiceDetailCoreViewRepository.findByInvoiceIdAndPatientId）
      * 
      * @param invoiceId 发票ID
      * @param patientId 患者ID
@@ -39,6 +50,17 @@ public interface InvoiceDetailViewRepository extends JpaRepository<InvoiceDetail
      */
     Optional<InvoiceDetailView> findByInvoiceIdAndPatientId(String invoiceId, String patientId);
     
+    /**
+     * 根据多个发票ID一次查询详情（IN列表）
+     * 不带患者条件，调用方需逐条校验患者ID，以区分“不存在”和“无权访问”
+     * 用于批量详情接口的权限校验，不使用查询缓存（原因同 findByInvoiceIdAndPatientId），
+     * 否则缓存的空结果会让刚开具的发票在查询缓存有效期内返回“不存在”
+     * 
+     * @param invoiceIds 发票ID列表
+     * @return 查到的发票详情（不保证顺序）
+     */
+    List<InvoiceDetailView> findByInvoiceIdIn(Collection<String> invoiceIds);
+    
     /**
      * 自定义查询示例：使用原生SQL查询
      * 
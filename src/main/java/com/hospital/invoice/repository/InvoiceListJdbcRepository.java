@@ -0,0 +1,230 @@
+package com.hospital.invoice.repository;
+
+import com.hospital.invoice.common.CursorPage;
+import com.hospital.invoice.dto.request.InvoiceListRequest;
+import com.hospital.invoice.dto.response.InvoiceListVO;
+import com.hospital.invoice.dto.response.InvoiceSummaryItemVO;
+import com.hospital.invoice.util.EncodingConverter;
+import com.hospital.invoice.util.InvoiceListCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 发票列表JDBC数据访问类
+ * 对应数据库视图：comm.invoice_list_view
+ * 
+ * 说明：
+ * 1. 视图是只读的，列表查询不需要Hibernate的实体管理（持久化上下文、脏检查快照、实体键映射）
+ * 2. 这里通过 JdbcTemplate + RowMapper 把结果集直接映射为 InvoiceListVO，每行只创建一个对象
+ * 3. SQL由 InvoiceListQueryBuilder 生成，与JPA方式使用完全相同的查询条件、排序和分页规则
+ */
+@Repository
+public class InvoiceListJdbcRepository {
+    
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    /**
+     * 行映射器：结果集 -> InvoiceListVO
+     * GBK字节列直接按GBK解码
+     */
+    public static final RowMapper<InvoiceListVO> ROW_MAPPER = (rs, rowNum) -> {
+        InvoiceListVO vo = new InvoiceListVO();
+        vo.setRcptNo(rs.getString("RCPT_NO"));
+        vo.setInvoiceId(rs.getString("INVOICE_ID"));
+        vo.setInvoiceNo(rs.getString("INVOICE_NO"));
+        vo.setInvoiceType(rs.getString("INVOICE_TYPE"));
+        vo.setInvoiceTypeLabel(EncodingConverter.decodeGbk(rs.getBytes("INVOICE_TYPE_LABEL")));
+        
+        BigDecimal amount = rs.getBigDecimal("AMOUNT");
+        if (amount != null) {
+            vo.setAmount(amount.toString());
+        }
+        
+        Timestamp createTime = rs.getTimestamp("CREATE_TIME");
+        if (createTime != null) {
+            vo.setCreateTime(TIME_FORMATTER.format(createTime.toLocalDateTime()));
+            vo.setDisplayTime(DISPLAY_FORMATTER.format(createTime.toLocalDateTime()));
+        }
+        
+        vo.setStatus(rs.getString("STATUS"));
+        vo.setStatusLabel(EncodingConverter.decodeGbk(rs.getBytes("STATUS_LABEL")));
+        vo.setPatientName(EncodingConverter.decodeGbk(rs.getBytes("PATIENT_NAME")));
+        vo.setPhoneNumber(rs.getString("PHONE_NUMBER"));
+        return vo;
+    };
+    
+    /**
+     * 患者发票汇总：按 类型 + 状态 + 开票月份 一次分组统计张数和金额
+     * 分组表达式与 SELECT 中的 TRUNC(CREATE_TIME, 'MM') 保持一致，月份在数据库中格式化
+     */
+    private static final String SUMMARY_SQL =
+            "SELECT INVOICE_TYPE, STATUS, TO_CHAR(TRUNC(CREATE_TIME, 'MM'), 'YYYY-MM') AS INVOICE_MONTH, " +
+            "COUNT(*) AS INVOICE_COUNT, SUM(AMOUNT) AS TOTAL_AMOUNT " +
+            "FROM COMM.INVOICE_LIST_VIEW WHERE PATIENT_ID = ? " +
+            "GROUP BY INVOICE_TYPE, STATUS, TRUNC(CREATE_TIME, 'MM') " +
+            "ORDER BY TRUNC(CREATE_TIME, 'MM') DESC NULLS LAST, INVOICE_TYPE, STATUS";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private InvoiceListQueryBuilder queryBuilder;
+    
+    /**
+     * 按条件查询一页发票列表
+     * 
+     * @param request 查询条件
+     * @param cursor 分页游标（第一页为null）
+     * @param pageSize 每页条数
+     * @return 当前页数据及下一页游标
+     */
+    public CursorPage<InvoiceListVO> findPage(InvoiceListRequest request, InvoiceListCursor cursor, int pageSize) {
+        // 多查一条判断是否有下一页
+        InvoiceListQueryBuilder.ListQuery query = queryBuilder.buildPage(request, cursor, pageSize + 1);
+        ResultSetExtractor<CursorPage<InvoiceListVO>> extractor = rs -> extractPage(rs, pageSize);
+        return jdbcTemplate.query(query.getSql(), extractor, query.getParams());
+    }
+    
+    /**
+     * 一次查询多个患者的第一页发票
+     * 
+     * @param request 查询条件（游标不生效）
+     * @param patientIds 患者ID列表（已去重）
+     * @param pageSize 每个患者的每页条数
+     * @return 患者ID -> 当前页数据及下一页游标（按 patientIds 顺序，没有发票的患者为空页）
+     */
+    public Map<String, CursorPage<InvoiceListVO>> findFirstPages(InvoiceListRequest request, List<String> patientIds,
+                                                                 int pageSize) {
+        // 每个患者多查一条判断是否有下一页
+        InvoiceListQueryBuilder.ListQuery query = queryBuilder.buildBatch(request, patientIds, pageSize + 1);
+        ResultSetExtractor<Map<String, CursorPage<InvoiceListVO>>> extractor = rs -> {
+            Map<String, List<InvoiceListVO>> rowsByPatient = new LinkedHashMap<>();
+            Map<String, Timestamp> lastCreateTimes = new HashMap<>();
+            for (String patientId : patientIds) {
+                rowsByPatient.put(patientId, new ArrayList<>());
+            }
+            // 结果集按 PATIENT_ID, CREATE_TIME DESC, RCPT_NO 排序，每个患者最多 pageSize + 1 行
+            while (rs.next()) {
+                List<InvoiceListVO> rows = rowsByPatient.get(rs.getString("PATIENT_ID"));
+                if (rows == null) {
+                    continue;
+                }
+                if (rows.size() < pageSize) {
+                    lastCreateTimes.put(rs.getString("PATIENT_ID"), rs.getTimestamp("CREATE_TIME"));
+                }
+                rows.add(ROW_MAPPER.mapRow(rs, rows.size()));
+            }
+            
+            Map<String, CursorPage<InvoiceListVO>> pages = new LinkedHashMap<>();
+            for (Map.Entry<String, List<InvoiceListVO>> entry : rowsByPatient.entrySet()) {
+                List<InvoiceListVO> rows = entry.getValue();
+                String nextCursor = null;
+                if (rows.size() > pageSize) {
+                    rows = rows.subList(0, pageSize);
+                    InvoiceListVO last = rows.get(pageSize - 1);
+                    nextCursor = new InvoiceListCursor(lastCreateTimes.get(entry.getKey()), last.getRcptNo()).encode();
+                }
+                pages.put(entry.getKey(), new CursorPage<>(rows, nextCursor));
+            }
+            return pages;
+        };
+        return jdbcTemplate.query(query.getSql(), extractor, query.getParams());
+    }
+    
+    /**
+     * 按条件流式读取全部发票（不分页）
+     * 
+     * 说明：
+     * 1. 使用只进只读游标，每次从Oracle取 fetchSize 行，读一行回调一行，不在内存中累积结果
+     * 2. 回调在JDBC连接占用期间执行，处理逻辑应尽量轻（例如直接写入响应流）
+     * 
+     * @param request 查询条件（分页游标同样生效，每页条数忽略）
+     * @param cursor 分页游标（可以为null）
+     * @param fetchSize 每次网络往返获取的行数
+     * @param consumer 每行的处理回调
+     */
+    public void streamAll(InvoiceListRequest request, InvoiceListCursor cursor, int fetchSize,
+                          Consumer<InvoiceListVO> consumer) {
+        InvoiceListQueryBuilder.ListQuery query = queryBuilder.buildAll(request, cursor);
+        
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement ps = connection.prepareStatement(query.getSql(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(query.getParams()).setValues(ps);
+            return ps;
+        };
+        RowCallbackHandler handler = new RowCallbackHandler() {
+            private int rowNum = 0;
+            
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                consumer.accept(ROW_MAPPER.mapRow(rs, rowNum++));
+            }
+        };
+        jdbcTemplate.query(statementCreator, handler);
+    }
+    
+    /**
+     * 查询患者发票的分组汇总（类型 + 状态 + 月份）
+     * 
+     * 说明：只返回代码和数值，中文标签由服务层根据枚举填充
+     * 
+     * @param patientId 患者ID
+     * @return 分组汇总，按月份倒序
+     */
+    public List<InvoiceSummaryItemVO> findSummaryGroups(String patientId) {
+        return jdbcTemplate.query(SUMMARY_SQL, (rs, rowNum) -> {
+            InvoiceSummaryItemVO item = new InvoiceSummaryItemVO();
+            item.setInvoiceType(rs.getString("INVOICE_TYPE"));
+            item.setStatus(rs.getString("STATUS"));
+            String month = rs.getString("INVOICE_MONTH");
+            item.setMonth(month != null ? month : "");
+            item.setCount(rs.getLong("INVOICE_COUNT"));
+            BigDecimal amount = rs.getBigDecimal("TOTAL_AMOUNT");
+            item.setAmount((amount != null ? amount : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP).toPlainString());
+            return item;
+        }, patientId);
+    }
+    
+    /**
+     * 读取一页数据，并根据多查出的一条生成下一页游标
+     */
+    private CursorPage<InvoiceListVO> extractPage(ResultSet rs, int pageSize) throws SQLException {
+        List<InvoiceListVO> items = new ArrayList<>(pageSize);
+        Timestamp lastCreateTime = null;
+        String lastRcptNo = null;
+        while (rs.next()) {
+            if (items.size() == pageSize) {
+                return new CursorPage<>(items, new InvoiceListCursor(lastCreateTime, lastRcptNo).encode());
+            }
+            InvoiceListVO vo = ROW_MAPPER.mapRow(rs, items.size());
+            lastCreateTime = rs.getTimestamp("CREATE_TIME");
+            lastRcptNo = vo.getRcptNo();
+            items.add(vo);
+        }
+        return new CursorPage<>(items, null);
+    }
+}
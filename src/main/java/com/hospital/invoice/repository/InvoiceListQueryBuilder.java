@@ -0,0 +1,345 @@
+package com.hospital.invoice.repository;
+
+import com.hospital.invoice.dto.request.InvoiceListRequest;
+import com.hospital.invoice.util.EncodingConverter;
+import com.hospital.invoice.util.InvoiceListCursor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发票列表查询SQL构建器
+ * 对应数据库视图：comm.invoice_list_view
+ * 
+ * 说明：
+ * 1. 不使用 (:x IS NULL OR col = :x) 这种“万能条件”写法，它会让Oracle无法使用索引
+ * 2. 每种“出现了哪些筛选条件”的组合对应一种固定的SQL形状，只出现实际传入的条件，值全部使用绑定变量
+ * 3. 形状的数量是有限的（由筛选条件个数决定），同一形状的SQL文本完全相同，
+ *    JDBC语句缓存和Oracle共享游标可以在请求之间复用，不会因为参数不同产生新的硬解析
+ * 4. SQL文本按形状缓存，只在第一次出现时拼接；每种形状的执行次数单独计数，便于观察
+ * 5. 多患者查询的IN列表长度按2的幂补齐，长度也计入形状，形状数量同样有限
+ */
+@Component
+public class InvoiceListQueryBuilder {
+    
+    /**
+     * 查询的列（与 InvoiceListView 实体映射的列一致，JPA和JDBC两种读取方式共用）
+     */
+    static final String SELECT_COLUMNS =
+            "RCPT_NO, INVOICE_ID, INVOICE_NO, INVOICE_TYPE, INVOICE_TYPE_LABEL, AMOUNT, CREATE_TIME, " +
+            "DISPLAY_TIME, STATUS, STATUS_LABEL, PATIENT_ID, PATIENT_NAME, PHONE_NUMBER";
+    
+    // 形状标志位：每个可选条件占一位
+    private static final int NAME = 1;
+    private static final int PHONE = 1 << 1;
+    private static final int TYPE = 1 << 2;
+    private static final int STATUS = 1 << 3;
+    private static final int START_DATE = 1 << 4;
+    private static final int END_DATE = 1 << 5;
+    private static final int CURSOR = 1 << 6;
+    private static final int CURSOR_NULL_TIME = 1 << 7;
+    private static final int PAGED = 1 << 8;
+    private static final int BATCH = 1 << 9;
+    
+    /**
+     * 多患者查询时，IN列表绑定变量个数存放在形状的高位
+     */
+    private static final int BATCH_SIZE_SHIFT = 16;
+    
+    /**
+     * 形状 -> SQL文本
+     */
+    private final Map<Integer, String> sqlByShape = new ConcurrentHashMap<>();
+    
+    /**
+     * 形状 -> 执行次数
+     */
+    private final Map<Integer, LongAdder> executionsByShape = new ConcurrentHashMap<>();
+    
+    /**
+     * 构建分页查询（多查一条用于判断是否有下一页，由调用方传入 pageSize + 1）
+     * 
+     * @param request 查询条件
+     * @param cursor 分页游标（第一页为null）
+     * @param limit 最多返回的行数
+     * @return 查询SQL及绑定变量
+     */
+    public ListQuery buildPage(InvoiceListRequest request, InvoiceListCursor cursor, int limit) {
+        return build(request, cursor, limit);
+    }
+    
+    /**
+     * 构建不分页的查询（流式读取）
+     * 
+     * @param request 查询条件
+     * @param cursor 分页游标（可以为null）
+     * @return 查询SQL及绑定变量
+     */
+    public ListQuery buildAll(InvoiceListRequest request, InvoiceListCursor cursor) {
+        return build(request, cursor, null);
+    }
+    
+    /**
+     * 各SQL形状的执行次数
+     * 
+     * @return 形状描述（如 PATIENT+TYPE+PAGED）-> 执行次数
+     */
+    public Map<String, Long> executionCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : executionsByShape.entrySet()) {
+            counts.put(describe(entry.getKey()), entry.getValue().sum());
+        }
+        return counts;
+    }
+    
+    private ListQuery build(InvoiceListRequest request, InvoiceListCursor cursor, Integer limit) {
+        // 步骤1：按传入的条件确定形状，并按固定顺序收集绑定变量
+        List<Object> params = new ArrayList<>();
+        params.add(request.getPatientId());
+        int shape = collectFilters(request, params);
+        if (cursor != null) {
+            shape |= CURSOR;
+            if (cursor.getCreateTime() == null) {
+                shape |= CURSOR_NULL_TIME;
+                params.add(cursor.getRcptNo());
+            } else {
+                Timestamp cursorTime = new Timestamp(cursor.getCreateTime().getTime());
+                params.add(cursorTime);
+                params.add(cursorTime);
+                params.add(cursor.getRcptNo());
+            }
+        }
+        if (limit != null) {
+            shape |= PAGED;
+            params.add(limit);
+        }
+        
+        // 步骤2：同一形状只拼接一次SQL
+        return toQuery(shape, params);
+    }
+    
+    /**
+     * 构建多患者查询：一次查询多个患者，每个患者按 CREATE_TIME DESC, RCPT_NO 取前 limitPerPatient 条
+     * 
+     * 说明：IN列表的绑定变量个数向上补齐到2的幂（用最后一个患者ID填充），
+     * 避免每种患者个数都产生一种新的SQL文本
+     * 
+     * @param request 查询条件（患者ID取自 patientIds 参数，游标不生效）
+     * @param patientIds 患者ID列表（已去重，不能为空）
+     * @param limitPerPatient 每个患者最多返回的行数
+     * @return 查询SQL及绑定变量
+     */
+    public ListQuery buildBatch(InvoiceListRequest request, List<String> patientIds, int limitPerPatient) {
+        int bucket = Integer.highestOneBit(patientIds.size());
+        if (bucket < patientIds.size()) {
+            bucket <<= 1;
+        }
+        List<Object> params = new ArrayList<>();
+        params.addAll(patientIds);
+        String padding = patientIds.get(patientIds.size() - 1);
+        for (int i = patientIds.size(); i < bucket; i++) {
+            params.add(padding);
+        }
+        int shape = BATCH | PAGED | (bucket << BATCH_SIZE_SHIFT) | collectFilters(request, params);
+        params.add(limitPerPatient);
+        return toQuery(shape, params);
+    }
+    
+    /**
+     * 收集可选筛选条件的绑定变量
+     * 
+     * @return 出现的筛选条件对应的形状标志位
+     */
+    private static int collectFilters(InvoiceListRequest request, List<Object> params) {
+        int shape = 0;
+        if (hasText(request.getPatientName())) {
+            shape |= NAME;
+            // 按GBK编码为字节，作为RAW绑定，与列中存储的原始字节直接比较
+            params.add(EncodingConverter.encodeGbk(request.getPatientName().trim()));
+        }
+        if (hasText(request.getPhoneNumber())) {
+            shape |= PHONE;
+            params.add("%" + request.getPhoneNumber().trim() + "%");
+        }
+        if (hasText(request.getInvoiceType())) {
+            shape |= TYPE;
+            params.add(request.getInvoiceType().trim());
+        }
+        if (hasText(request.getStatus())) {
+            shape |= STATUS;
+            params.add(request.getStatus().trim());
+        }
+        if (hasText(request.getStartDate())) {
+            shape |= START_DATE;
+            params.add(Timestamp.valueOf(LocalDate.parse(request.getStartDate().trim()).atStartOfDay()));
+        }
+        if (hasText(request.getEndDate())) {
+            shape |= END_DATE;
+            params.add(Timestamp.valueOf(LocalDate.parse(request.getEndDate().trim()).plusDays(1).atStartOfDay()));
+        }
+        return shape;
+    }
+    
+    private ListQuery toQuery(int shape, List<Object> params) {
+        String sql = sqlByShape.computeIfAbsent(shape, InvoiceListQueryBuilder::renderSql);
+        executionsByShape.computeIfAbsent(shape, key -> new LongAdder()).increment();
+        return new ListQuery(sql, params.toArray(), describe(shape));
+    }
+    
+    /**
+     * 按形状生成SQL文本
+     * 条件顺序必须与 build / buildBatch 中绑定变量的收集顺序一致
+     */
+    private static String renderSql(int shape) {
+        if ((shape & BATCH) != 0) {
+            return renderBatchSql(shape);
+        }
+        StringBuilder sql = new StringBuilder(512);
+        sql.append("SELECT ").append(SELECT_COLUMNS)
+           .append(" FROM COMM.INVOICE_LIST_VIEW WHERE PATIENT_ID = ?");
+        appendFilters(sql, shape);
+        // 键集分页条件，排序为 CREATE_TIME DESC（Oracle中NULL排最前）, RCPT_NO ASC：
+        // - 游标时间为NULL：同为NULL且收据号更大的记录，或所有时间非NULL的记录
+        // - 游标时间非NULL：时间更早的记录，或时间相同且收据号更大的记录
+        if ((shape & CURSOR_NULL_TIME) != 0) {
+            sql.append(" AND ((CREATE_TIME IS NULL AND RCPT_NO > ?) OR CREATE_TIME IS NOT NULL)");
+        } else if ((shape & CURSOR) != 0) {
+            sql.append(" AND (CREATE_TIME < CAST(? AS DATE) OR (CREATE_TIME = CAST(? AS DATE) AND RCPT_NO > ?))");
+        }
+        sql.append(" ORDER BY CREATE_TIME DESC, RCPT_NO");
+        
+        // Oracle 11g 没有 FETCH FIRST，用ROWNUM包一层实现Top-N
+        if ((shape & PAGED) != 0) {
+            return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= ?";
+        }
+        return sql.toString();
+    }
+    
+    /**
+     * 多患者查询SQL：IN列表 + 按患者分区编号，每个患者只保留前N条
+     */
+    private static String renderBatchSql(int shape) {
+        int bucket = shape >>> BATCH_SIZE_SHIFT;
+        StringBuilder sql = new StringBuilder(512);
+        sql.append("SELECT ").append(SELECT_COLUMNS).append(" FROM (SELECT ").append(SELECT_COLUMNS)
+           .append(", ROW_NUMBER() OVER (PARTITION BY PATIENT_ID ORDER BY CREATE_TIME DESC, RCPT_NO) AS RN")
+           .append(" FROM COMM.INVOICE_LIST_VIEW WHERE PATIENT_ID IN (");
+        for (int i = 0; i < bucket; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        appendFilters(sql, shape);
+        sql.append(") WHERE RN <= ? ORDER BY PATIENT_ID, CREATE_TIME DESC, RCPT_NO");
+        return sql.toString();
+    }
+    
+    /**
+     * 拼接可选筛选条件，顺序与 collectFilters 一致
+     */
+    private static void appendFilters(StringBuilder sql, int shape) {
+        // 姓名列在US7ASCII库中存的是GBK字节，按字节做子串匹配：
+        // - UTL_RAW.CAST_TO_VARCHAR2 只改变类型不做字符集转换，得到与列中相同的字节串
+        // - 不用LIKE：GBK汉字的第二个字节可能是 0x5F（'_'），在LIKE中会被当成通配符
+        // - 单字节字符集下INSTR按字节比较；理论上可能跨汉字边界误匹配（前一字的尾字节+后一字的首字节），
+        //   概率极低，且查询始终限定在本患者范围内，可以接受
+        if ((shape & NAME) != 0) {
+            sql.append(" AND INSTR(PATIENT_NAME, UTL_RAW.CAST_TO_VARCHAR2(?)) > 0");
+        }
+        if ((shape & PHONE) != 0) {
+            sql.append(" AND PHONE_NUMBER LIKE ?");
+        }
+        if ((shape & TYPE) != 0) {
+            sql.append(" AND INVOICE_TYPE = ?");
+        }
+        if ((shape & STATUS) != 0) {
+            sql.append(" AND STATUS = ?");
+        }
+        // 时间参数显式转为DATE，避免DATE列被隐式转换为TIMESTAMP导致索引失效
+        if ((shape & START_DATE) != 0) {
+            sql.append(" AND CREATE_TIME >= CAST(? AS DATE)");
+        }
+        if ((shape & END_DATE) != 0) {
+            sql.append(" AND CREATE_TIME <= CAST(? AS DATE)");
+        }
+    }
+    
+    /**
+     * 形状的可读描述
+     */
+    private static String describe(int shape) {
+        StringBuilder name = new StringBuilder();
+        if ((shape & BATCH) != 0) {
+            name.append("PATIENTS(").append(shape >>> BATCH_SIZE_SHIFT).append(")");
+        } else {
+            name.append("PATIENT");
+        }
+        if ((shape & NAME) != 0) {
+            name.append("+NAME");
+        }
+        if ((shape & PHONE) != 0) {
+            name.append("+PHONE");
+        }
+        if ((shape & TYPE) != 0) {
+            name.append("+TYPE");
+        }
+        if ((shape & STATUS) != 0) {
+            name.append("+STATUS");
+        }
+        if ((shape & START_DATE) != 0) {
+            name.append("+START");
+        }
+        if ((shape & END_DATE) != 0) {
+            name.append("+END");
+        }
+        if ((shape & CURSOR_NULL_TIME) != 0) {
+            name.append("+CURSOR_NULL_TIME");
+        } else if ((shape & CURSOR) != 0) {
+            name.append("+CURSOR");
+        }
+        if ((shape & PAGED) != 0) {
+            name.append("+PAGED");
+        }
+        return name.toString();
+    }
+    
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+    
+    /**
+     * 构建好的查询：SQL文本 + 按顺序排列的绑定变量
+     */
+    public static final class ListQuery {
+        
+        private final String sql;
+        
+        private final Object[] params;
+        
+        private final String shape;
+        
+        ListQuery(String sql, Object[] params, String shape) {
+            this.sql = sql;
+            this.params = params;
+            this.shape = shape;
+        }
+        
+        public String getSql() {
+            return sql;
+        }
+        
+        public Object[] getParams() {
+            return params;
+        }
+        
+        public String getShape() {
+            return shape;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.hospital.invoice.repository;
 
+import com.hospital.invoice.cache.CacheRegions;
 import com.hospital.invoice.entity.view.InvoiceListView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,6 +22,7 @@ import java.util.List;
  * 2. 继承 JpaSpecificationExecutor 支持动态查询
  * 3. 视图是只读的，只能查询不能修改
  * 4. 可以使用 @Query 注解编写自定义SQL查询
+ * 5. 派生查询启用查询缓存（Hibernate二级缓存），原生SQL查询不缓存
  */
 @Repository
 public interface InvoiceListViewRepository extends JpaRepository<InvoiceListView, String>,
@@ -31,6 +35,10 @@ public interface InvoiceListViewRepository extends JpaRepository<InvoiceListView
      * @param patientId 患者ID
      * @return 发票列表
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheRegions.LIST_QUERY)
+    })
     List<InvoiceListView> findByPatientId(String patientId);
     
     /**
@@ -40,6 +48,10 @@ public interface InvoiceListViewRepository extends JpaRepository<InvoiceListView
      * @param invoiceType 发票类型
      * @return 发票列表
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheRegions.LIST_QUERY)
+    })
     List<InvoiceListView> findByPatientIdAndInvoiceType(String patientId, String invoiceType);
     
     /**
@@ -49,6 +61,10 @@ public interface InvoiceListViewRepository extends JpaRepository<InvoiceListView
      * @param status 发票状态
      * @return 发票列表
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheRegions.LIST_QUERY)
+    })
     List<InvoiceListView> findByPatientIdAndStatus(String patientId, String status);
     
     /**
@@ -59,6 +75,10 @@ public interface InvoiceListViewRepository extends JpaRepository<InvoiceListView
      * @param endTime 结束时间
      * @return 发票列表
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheRegions.LIST_QUERY)
+    })
     List<InvoiceListView> findByPatientIdAndCreateTimeBetween(
             String patientId, 
             LocalDateTime startTime, 
@@ -76,23 +96,19 @@ public interface InvoiceListViewRepository extends JpaRepository<InvoiceListView
     List<InvoiceListView> findInvoiceListByPatientId(@Param("patientId") String patientId);
     
     /**
-     * 条件查询示例：使用原生SQL + 动态条件
+     * 查询患者最新的N张发票（Top-N）
+     * 排序和行数限制都在Oracle中完成：Oracle 11g 没有 FETCH FIRST，用ROWNUM包一层，
+     * 可以沿 (PATIENT_ID, CREATE_TIME) 索引取到N行后提前结束，不需要对患者全部发票排序后再返回
      * 
      * @param patientId 患者ID
-     * @param invoiceType 发票类型（可选）
-     * @param status 发票状态（可选）
-     * @return 发票列表
+     * @param limit 最多返回的条数
+     * @return 最新的发票列表，按开票时间倒序
      */
-    @Query(value = "SELECT * FROM comm.invoice_list_view " +
-                   "WHERE patient_id = :patientId " +
-                   "AND (:invoiceType IS NULL OR invoice_type = :invoiceType) " +
-                   "AND (:status IS NULL OR status = :status) " +
-                   "ORDER BY create_time DESC",
+    @Query(value = "SELECT * FROM (SELECT * FROM comm.invoice_list_view WHERE patient_id = :patientId " +
+                   "ORDER BY create_time DESC, rcpt_no) WHERE ROWNUM <= :limit",
            nativeQuery = true)
-    List<InvoiceListView> findInvoiceListByConditions(
-            @Param("patientId") String patientId,
-            @Param("invoiceType") String invoiceType,
-            @Param("status") String status);
+    List<InvoiceListView> findLatestByPatientId(@Param("patientId") String patientId, @Param("limit") int limit);
+
 }
 
 
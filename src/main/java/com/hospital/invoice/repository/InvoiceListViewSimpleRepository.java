@@ -1,9 +1,12 @@
 package com.hospital.invoice.repository;
 
+import com.hospital.invoice.cache.CacheRegions;
 import com.hospital.invoice.entity.view.InvoiceListViewSimple;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -12,6 +15,10 @@ import java.util.List;
 @Repository
 public interface InvoiceListViewSimpleRepository extends JpaRepository<InvoiceListViewSimple, String> {
     
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = CacheRegions.LIST_QUERY)
+    })
     List<InvoiceListViewSimple> findByPatientId(String patientId);
 }
 
@@ -0,0 +1,67 @@
+package com.hospital.invoice.service;
+
+import com.hospital.invoice.entity.view.InvoiceDetailCore;
+
+/**
+ * 发票访问校验结果
+ * 权限校验与发票查询合并为一次数据库访问：校验通过时同时携带已查出的发票核心字段，
+ * 后续的发送邮件、下载等操作直接使用，不再重复查询；查询详情时再按主键加载完整字段
+ */
+public final class InvoiceAccessResult {
+    
+    /**
+     * 校验结论
+     */
+    public enum Verdict {
+        /**
+         * 有权访问
+         */
+        GRANTED,
+        
+        /**
+         * 无权访问（发票不存在或不属于该患者）
+         */
+        DENIED
+    }
+    
+    private static final InvoiceAccessResult DENIED = new InvoiceAccessResult(Verdict.DENIED, null);
+    
+    private final Verdict verdict;
+    
+    private final InvoiceDetailCore core;
+    
+    private InvoiceAccessResult(Verdict verdict, InvoiceDetailCore core) {
+        this.verdict = verdict;
+        this.core = core;
+    }
+    
+    /**
+     * 校验通过
+     * @param core 已查出的发票核心字段（可能是完整的详情视图）
+     */
+    public static InvoiceAccessResult granted(InvoiceDetailCore core) {
+        return new InvoiceAccessResult(Verdict.GRANTED, core);
+    }
+    
+    /**
+     * 校验不通过
+     */
+    public static InvoiceAccessResult denied() {
+        return DENIED;
+    }
+    
+    public Verdict getVerdict() {
+        return verdict;
+    }
+    
+    public boolean isGranted() {
+        return verdict == Verdict.GRANTED;
+    }
+    
+    /**
+     * 发票核心字段（校验不通过时为null）
+     */
+    public InvoiceDetailCore getCore() {
+        return core;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hospital.invoice.service;
+
+/**
+ * 发票缓存失效服务接口
+ * 发票数据由HIS写入视图，本服务感知不到变化；发票开具、作废、冲红、重新生成PDF后，
+ * 由写入方（消息消费者、定时轮询等）或运维管理接口调用本服务，使各级缓存立即失效
+ * 
+ * 涉及的缓存：列表及汇总缓存、详情缓存、否定查询缓存、Hibernate二级缓存、PDF磁盘缓存
+ * 
+ * 说明：
+ * 1. 不依赖 invoice.admin.enabled，运维管理接口关闭时同样可用
+ * 2. 未调用时各级缓存只能依靠过期时间刷新，最长延迟见各缓存的过期时间配置
+ */
+public interface InvoiceCacheService {
+    
+    /**
+     * 发票发生变化后使相关缓存失效，参数可以只传其中一部分
+     * 1. 传发票ID或收据号时清除该发票的详情缓存及否定查询记录
+     * 2. 传患者ID时清除该患者的列表、汇总、详情缓存及否定查询记录（列表中的发票状态同样需要刷新）
+     * 3. Hibernate二级缓存：按收据号只清除该实体，其余情况清除对应的整个区域（区域不按患者划分）
+     * 4. PDF磁盘缓存：传发票ID时删除该发票的缓存文件
+     * 
+     * @param invoiceId 发票ID（可选）
+     * @param rcptNo 收据号（可选）
+     * @param patientId 患者ID（可选）
+     * @return 是否清除了缓存（三个参数都为空时不做任何处理，返回false）
+     */
+    boolean invalidate(String invoiceId, String rcptNo, String patientId);
+    
+    /**
+     * 清空全部缓存
+     */
+    void invalidateAll();
+}
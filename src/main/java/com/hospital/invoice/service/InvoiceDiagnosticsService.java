@@ -0,0 +1,56 @@
+package com.hospital.invoice.service;
+
+import com.hospital.invoice.dto.response.ListReadBenchmarkVO;
+import com.hospital.invoice.dto.response.ViewSchemaVO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 发票诊断服务接口
+ * 提供视图结构内省、样例数据抽取等排查功能
+ * 
+ * 说明：
+ * 1. 这些查询原本混在发票列表查询里，每次请求都会执行，现单独拆出按需调用
+ * 2. 视图结构在启动时采集一次并缓存，诊断接口直接返回缓存结果
+ * 3. 仅供运维排查使用，由 invoice.admin.enabled 开关控制是否启用
+ */
+public interface InvoiceDiagnosticsService {
+    
+    /**
+     * 获取视图结构快照（启动时采集的缓存结果）
+     * 
+     * @return 视图名称 -> 视图结构
+     */
+    Map<String, ViewSchemaVO> getSchemaSnapshot();
+    
+    /**
+     * 重新采集视图结构快照
+     * 视图定义变更后可手动调用刷新
+     * 
+     * @return 刷新后的视图结构快照
+     */
+    Map<String, ViewSchemaVO> refreshSchemaSnapshot();
+    
+    /**
+     * 抽取指定患者在视图中的样例数据（原始字段值）
+     * 
+     * @param viewName 视图名称（INVOICE_LIST_VIEW 或 INVOICE_DETAIL_VIEW）
+     * @param patientId 患者ID
+     * @param limit 最多返回的行数
+     * @return 每行一个Map，key为列名，value为字段值及其JDBC类型
+     */
+    List<Map<String, Object>> sampleRows(String viewName, String patientId, int limit);
+    
+    /**
+     * 对比发票列表两种读取方式（JPA实体 / JDBC行映射）的耗时和内存分配
+     * 两种方式使用相同的查询条件，各预热一次后再计时
+     * 
+     * @param patientId 患者ID
+     * @param pageSize 每页条数
+     * @param iterations 每种方式的执行次数
+     * @return 每种读取方式的统计结果
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    List<ListReadBenchmarkVO> benchmarkListRead(String patientId, int pageSize, int iterations) throws Exception;
+}
@@ -1,14 +1,22 @@
 package com.hospital.invoice.service;
 
+import com.hospital.invoice.common.BusinessException;
+import com.hospital.invoice.common.CursorPage;
 import com.hospital.invoice.dto.request.InvoiceDetailRequest;
 import com.hospital.invoice.dto.request.InvoiceDownloadRequest;
 import com.hospital.invoice.dto.request.InvoiceListRequest;
 import com.hospital.invoice.dto.request.SendEmailRequest;
+import com.hospital.invoice.dto.response.InvoiceDetailBatchItemVO;
 import com.hospital.invoice.dto.response.InvoiceDetailVO;
 import com.hospital.invoice.dto.response.InvoiceListVO;
+import com.hospital.invoice.dto.response.InvoiceSummaryVO;
 import com.hospital.invoice.dto.response.SendEmailVO;
+import com.hospital.invoice.enums.ListReadMode;
+import com.hospital.invoice.pdf.InvoicePdf;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 发票服务接口
@@ -20,13 +28,78 @@ public interface InvoiceService {
     
     /**
      * 查询发票列表
-     * 根据条件查询用户的电子发票列表
+     * 根据条件查询用户的电子发票列表，按开票时间倒序游标分页
      * 
-     * @param request 查询条件请求对象，包含患者ID、日期范围、发票类型等筛选条件
-     * @return 发票列表数据，每个元素是一个发票的摘要信息
+     * @param request 查询条件请求对象，包含患者ID、日期范围、发票类型等筛选条件及分页游标
+     * @return 当前页发票列表（每个元素是一个发票的摘要信息）及下一页游标
+     * @throws BusinessException 当分页游标或日期格式不合法时抛出（错误码400）
      * @throws Exception 当查询过程出现异常时抛出
      */
-    List<InvoiceListVO> getInvoiceList(InvoiceListRequest request) throws Exception;
+    CursorPage<InvoiceListVO> getInvoiceList(InvoiceListRequest request) throws Exception;
+    
+    /**
+     * 以指定的读取方式查询发票列表
+     * 查询条件与分页规则与 {@link #getInvoiceList(InvoiceListRequest)} 完全相同，主要用于性能对比
+     * 
+     * @param request 查询条件请求对象
+     * @param mode 读取方式（JPA实体 / JDBC行映射）
+     * @return 当前页发票列表及下一页游标
+     * @throws BusinessException 当分页游标或日期格式不合法时抛出（错误码400）
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    CursorPage<InvoiceListVO> getInvoiceList(InvoiceListRequest request, ListReadMode mode) throws Exception;
+    
+    /**
+     * 一次查询多个患者的发票列表（第一页）
+     * 适用于监护人同时查看多个被监护人的发票，数据库只执行一次查询
+     * 
+     * @param request 查询条件请求对象，患者ID取自 patientIds，其余筛选条件对每个患者生效，游标不生效
+     * @return 患者ID -> 该患者第一页发票及下一页游标（下一页通过 /list 按单个患者继续查询）
+     * @throws BusinessException 当患者ID为空、数量超过上限或日期格式不合法时抛出（错误码400）
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    Map<String, CursorPage<InvoiceListVO>> getInvoiceListBatch(InvoiceListRequest request) throws Exception;
+    
+    /**
+     * 查询患者最新的N张发票
+     * 适用于首页卡片等只展示少量最新发票的场景，不分页、不返回游标
+     * 
+     * @param patientId 患者ID
+     * @param limit 返回条数（为空使用默认值，超过上限按上限处理）
+     * @return 最新的发票列表，按开票时间倒序
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    List<InvoiceListVO> getLatestInvoices(String patientId, Integer limit) throws Exception;
+    
+    /**
+     * 校验发票列表查询条件（分页游标、日期格式）
+     * 流式查询在开始输出前调用，避免输出一半才发现参数错误
+     * 
+     * @param request 查询条件请求对象
+     * @throws BusinessException 当分页游标或日期格式不合法时抛出（错误码400）
+     */
+    void validateListRequest(InvoiceListRequest request);
+    
+    /**
+     * 流式查询发票列表（不分页）
+     * 逐行从数据库游标读取并回调，结果不在内存中累积，适用于数据量很大的查询
+     * 
+     * @param request 查询条件请求对象（每页条数不生效）
+     * @param consumer 每条发票的处理回调，按开票时间倒序依次调用
+     * @throws BusinessException 当分页游标或日期格式不合法时抛出（错误码400）
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    void streamInvoiceList(InvoiceListRequest request, Consumer<InvoiceListVO> consumer) throws Exception;
+    
+    /**
+     * 查询患者发票汇总
+     * 按票据类型、发票状态、开票月份统计张数和金额合计
+     * 
+     * @param patientId 患者ID
+     * @return 汇总结果（含明细分组及按单一维度的合计）
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    InvoiceSummaryVO getInvoiceSummary(String patientId) throws Exception;
     
     /**
      * 查询发票详情
@@ -38,6 +111,73 @@ public interface InvoiceService {
      */
     InvoiceDetailVO getInvoiceDetail(InvoiceDetailRequest request) throws Exception;
     
+    /**
+     * 批量查询发票详情
+     * 一次查询加载多张发票，每张发票单独给出结果（成功 / 不存在 / 无权访问），不因个别发票失败而整体失败
+     * 
+     * @param patientId 患者ID（用于权限校验）
+     * @param invoiceIds 发票ID列表
+     * @return 每张发票的查询结果，顺序与请求一致（重复的发票ID只返回一次）
+     * @throws BusinessException 当发票ID为空或数量超过上限时抛出（错误码400）
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    List<InvoiceDetailBatchItemVO> getInvoiceDetails(String patientId, List<String> invoiceIds) throws Exception;
+    
+    /**
+     * 校验患者访问权限并加载发票
+     * 一次查询同时完成权限校验和发票核心字段加载，校验通过的结果可直接传给
+     * {@link #getInvoiceDetail(InvoiceAccessResult)}、{@link #sendInvoiceToEmail(SendEmailRequest, InvoiceAccessResult)}、
+     * {@link #downloadInvoicePdf(InvoiceAccessResult)}，避免重复查询
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @return 校验结果，校验通过时携带发票核心字段
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    InvoiceAccessResult authorize(String invoiceId, String patientId) throws Exception;
+    
+    /**
+     * 按收据号（主键）校验患者访问权限并加载发票
+     * 未开票的收据没有发票ID，只能通过此方法查询
+     * 
+     * @param rcptNo 收据号
+     * @param patientId 患者ID
+     * @return 校验结果，校验通过时携带发票核心字段
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    InvoiceAccessResult authorizeByRcptNo(String rcptNo, String patientId) throws Exception;
+    
+    /**
+     * 校验患者访问权限并加载完整的发票详情（用于详情查询）
+     * 与 {@link #authorize(String, String)} 相同，但直接查询完整的详情视图，
+     * 缓存未命中时只访问一次数据库；发送邮件、下载PDF只需要核心字段，仍使用 authorize
+     * 
+     * @param invoiceId 发票ID
+     * @param patientId 患者ID
+     * @return 校验结果，校验通过时携带完整的发票详情视图
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    InvoiceAccessResult authorizeDetail(String invoiceId, String patientId) throws Exception;
+    
+    /**
+     * 按收据号（主键）校验患者访问权限并加载完整的发票详情（用于详情查询）
+     * 
+     * @param rcptNo 收据号
+     * @param patientId 患者ID
+     * @return 校验结果，校验通过时携带完整的发票详情视图
+     * @throws Exception 当查询过程出现异常时抛出
+     */
+    InvoiceAccessResult authorizeDetailByRcptNo(String rcptNo, String patientId) throws Exception;
+    
+    /**
+     * 查询发票详情（使用已校验的访问结果，不再校验权限；访问结果只有核心字段时按主键加载完整详情）
+     * 
+     * @param access {@link #authorize(String, String)} 的返回结果
+     * @return 发票详情数据
+     * @throws Exception 当校验未通过时抛出异常
+     */
+    InvoiceDetailVO getInvoiceDetail(InvoiceAccessResult access) throws Exception;
+    
     /**
      * 发送发票到邮箱
      * 将电子发票PDF文件发送到指定邮箱
@@ -48,15 +188,35 @@ public interface InvoiceService {
      */
     SendEmailVO sendInvoiceToEmail(SendEmailRequest request) throws Exception;
     
+    /**
+     * 发送发票到邮箱（使用已校验的访问结果，不再查询数据库）
+     * 
+     * @param request 发送请求对象，包含邮箱地址、邮件标题等
+     * @param access {@link #authorize(String, String)} 的返回结果
+     * @return 发送结果数据
+     * @throws Exception 当校验未通过或发送失败时抛出异常
+     */
+    SendEmailVO sendInvoiceToEmail(SendEmailRequest request, InvoiceAccessResult access) throws Exception;
+    
     /**
      * 下载发票PDF文件
-     * 获取电子发票PDF文件的字节流数据
+     * 获取电子发票PDF文件的位置（本地文件或远程地址），不读取文件内容；
+     * 没有外部PDF文件（PDF_URL为空）的发票按发票详情在本地生成
      * 
      * @param request 下载请求对象，包含发票ID和患者ID（用于权限校验）
-     * @return PDF文件的字节数组，可直接返回给前端或写入响应流
-     * @throws Exception 当发票不存在、PDF生成失败或无权访问时抛出异常
+     * @return PDF文件位置，由 PdfStreamer 直接写入响应流
+     * @throws Exception 当发票不存在、PDF文件不存在或无权访问时抛出异常
+     */
+    InvoicePdf downloadInvoicePdf(InvoiceDownloadRequest request) throws Exception;
+    
+    /**
+     * 下载发票PDF文件（使用已校验的访问结果，不再查询数据库）
+     * 
+     * @param access {@link #authorize(String, String)} 的返回结果
+     * @return PDF文件位置
+     * @throws Exception 当校验未通过或PDF不存在时抛出异常
      */
-    byte[] downloadInvoicePdf(InvoiceDownloadRequest request) throws Exception;
+    InvoicePdf downloadInvoicePdf(InvoiceAccessResult access) throws Exception;
     
     /**
      * 校验患者是否有权访问该发票
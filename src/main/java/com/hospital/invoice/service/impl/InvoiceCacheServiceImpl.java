@@ -0,0 +1,84 @@
+package com.hospital.invoice.service.impl;
+
+import com.hospital.invoice.cache.InvoiceDetailCache;
+import com.hospital.invoice.cache.InvoiceListCache;
+import com.hospital.invoice.cache.InvoiceNegativeCache;
+import com.hospital.invoice.cache.SecondLevelCacheStats;
+import com.hospital.invoice.pdf.PdfDiskCache;
+import com.hospital.invoice.service.InvoiceCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 发票缓存失效服务实现类
+ */
+@Service
+public class InvoiceCacheServiceImpl implements InvoiceCacheService {
+    
+    private static final Logger log = LoggerFactory.getLogger(InvoiceCacheServiceImpl.class);
+    
+    @Autowired
+    private InvoiceListCache invoiceListCache;
+    
+    @Autowired
+    private InvoiceDetailCache invoiceDetailCache;
+    
+    @Autowired
+    private InvoiceNegativeCache invoiceNegativeCache;
+    
+    @Autowired
+    private SecondLevelCacheStats secondLevelCacheStats;
+    
+    @Autowired
+    private PdfDiskCache pdfDiskCache;
+    
+    @Override
+    public boolean invalidate(String invoiceId, String rcptNo, String patientId) {
+        String normalizedInvoiceId = trimToNull(invoiceId);
+        String normalizedRcptNo = trimToNull(rcptNo);
+        String normalizedPatientId = trimToNull(patientId);
+        if (normalizedInvoiceId == null && normalizedRcptNo == null && normalizedPatientId == null) {
+            return false;
+        }
+        log.info("发票缓存失效：invoiceId={}, rcptNo={}, patientId={}",
+                normalizedInvoiceId, normalizedRcptNo, normalizedPatientId);
+        if (normalizedInvoiceId != null) {
+            invoiceDetailCache.invalidateInvoice(normalizedInvoiceId);
+            invoiceNegativeCache.invalidateInvoice(normalizedInvoiceId);
+            secondLevelCacheStats.evictDetails();
+            pdfDiskCache.invalidateInvoice(normalizedInvoiceId);
+        }
+        if (normalizedRcptNo != null) {
+            invoiceDetailCache.invalidateReceipt(normalizedRcptNo);
+            invoiceNegativeCache.invalidateReceipt(normalizedRcptNo);
+            secondLevelCacheStats.evictReceipt(normalizedRcptNo);
+        }
+        if (normalizedPatientId != null) {
+            invoiceListCache.invalidatePatient(normalizedPatientId);
+            invoiceDetailCache.invalidatePatient(normalizedPatientId);
+            invoiceNegativeCache.invalidatePatient(normalizedPatientId);
+            secondLevelCacheStats.evictLists();
+            secondLevelCacheStats.evictDetails();
+        }
+        return true;
+    }
+    
+    @Override
+    public void invalidateAll() {
+        log.info("清空全部发票缓存");
+        invoiceListCache.invalidateAll();
+        invoiceDetailCache.invalidateAll();
+        invoiceNegativeCache.invalidateAll();
+        secondLevelCacheStats.evictAll();
+        pdfDiskCache.invalidateAll();
+    }
+    
+    private static String trimToNull(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
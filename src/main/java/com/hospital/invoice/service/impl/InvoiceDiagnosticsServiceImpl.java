@@ -0,0 +1,225 @@
+package com.hospital.invoice.service.impl;
+
+import com.hospital.invoice.common.CursorPage;
+import com.hospital.invoice.dto.request.InvoiceListRequest;
+import com.hospital.invoice.dto.response.InvoiceListVO;
+import com.hospital.invoice.dto.response.ListReadBenchmarkVO;
+import com.hospital.invoice.dto.response.ViewColumnVO;
+import com.hospital.invoice.dto.response.ViewSchemaVO;
+import com.hospital.invoice.enums.ListReadMode;
+import com.hospital.invoice.service.InvoiceDiagnosticsService;
+import com.hospital.invoice.service.InvoiceService;
+import com.hospital.invoice.util.EncodingConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 发票诊断服务实现类
+ * 
+ * 说明：
+ * 1. 视图结构快照在应用启动完成后采集一次，之后只读缓存
+ * 2. 启动时数据库不可用不会影响应用启动，错误信息记录在快照的error字段中
+ * 3. 样例数据直接走JDBC，GBK字节列按GBK解码后返回，便于核对编码问题
+ */
+@Service
+@ConditionalOnProperty(prefix = "invoice.admin", name = "enabled", havingValue = "true")
+public class InvoiceDiagnosticsServiceImpl implements InvoiceDiagnosticsService {
+    
+    private static final Logger log = LoggerFactory.getLogger(InvoiceDiagnosticsServiceImpl.class);
+    
+    /**
+     * 视图所属schema
+     */
+    private static final String OWNER = "COMM";
+    
+    /**
+     * 允许诊断的视图（白名单，视图名会拼接进SQL）
+     */
+    private static final List<String> VIEW_NAMES = Arrays.asList("INVOICE_LIST_VIEW", "INVOICE_DETAIL_VIEW");
+    
+    /**
+     * 样例数据最大行数
+     */
+    private static final int MAX_SAMPLE_ROWS = 20;
+    
+    /**
+     * 基准测试每种方式的最大执行次数
+     */
+    private static final int MAX_BENCHMARK_ITERATIONS = 50;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private InvoiceService invoiceService;
+    
+    /**
+     * 视图结构快照（不可变Map，整体替换）
+     */
+    private volatile Map<String, ViewSchemaVO> schemaSnapshot = Collections.emptyMap();
+    
+    /**
+     * 应用启动完成后采集视图结构快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void captureOnStartup() {
+        refreshSchemaSnapshot();
+        log.info("视图结构快照采集完成：{}", schemaSnapshot.keySet());
+    }
+    
+    @Override
+    public Map<String, ViewSchemaVO> getSchemaSnapshot() {
+        return schemaSnapshot;
+    }
+    
+    @Override
+    public Map<String, ViewSchemaVO> refreshSchemaSnapshot() {
+        Map<String, ViewSchemaVO> snapshot = new LinkedHashMap<>();
+        for (String viewName : VIEW_NAMES) {
+            snapshot.put(viewName, captureViewSchema(viewName));
+        }
+        this.schemaSnapshot = Collections.unmodifiableMap(snapshot);
+        return this.schemaSnapshot;
+    }
+    
+    @Override
+    public List<Map<String, Object>> sampleRows(String viewName, String patientId, int limit) {
+        String view = viewName != null ? viewName.trim().toUpperCase() : "";
+        if (!VIEW_NAMES.contains(view)) {
+            throw new IllegalArgumentException("不支持的视图：" + viewName);
+        }
+        int rows = Math.max(1, Math.min(limit, MAX_SAMPLE_ROWS));
+        
+        String sql = "SELECT * FROM " + OWNER + "." + view + " WHERE PATIENT_ID = ? AND ROWNUM <= ?";
+        List<Map<String, Object>> rawRows = jdbcTemplate.queryForList(sql, patientId, rows);
+        
+        List<Map<String, Object>> result = new ArrayList<>(rawRows.size());
+        for (Map<String, Object> rawRow : rawRows) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> field : rawRow.entrySet()) {
+                row.put(field.getKey(), describeValue(field.getValue()));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+    
+    @Override
+    public List<ListReadBenchmarkVO> benchmarkListRead(String patientId, int pageSize, int iterations) throws Exception {
+        int runs = Math.max(1, Math.min(iterations, MAX_BENCHMARK_ITERATIONS));
+        InvoiceListRequest request = new InvoiceListRequest();
+        request.setPatientId(patientId);
+        request.setPageSize(pageSize);
+        
+        List<ListReadBenchmarkVO> results = new ArrayList<>();
+        for (ListReadMode mode : ListReadMode.values()) {
+            results.add(benchmark(request, mode, runs));
+        }
+        return results;
+    }
+    
+    /**
+     * 对单一读取方式计时，并统计当前线程的堆内存分配量
+     */
+    private ListReadBenchmarkVO benchmark(InvoiceListRequest request, ListReadMode mode, int runs) throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = threadBean instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threadBean : null;
+        long threadId = Thread.currentThread().getId();
+        
+        // 预热一次（类加载、语句准备、连接获取等），不计入统计
+        int rows = invoiceService.getInvoiceList(request, mode).getItems().size();
+        
+        long totalNanos = 0;
+        long minNanos = Long.MAX_VALUE;
+        long maxNanos = 0;
+        long totalAllocated = 0;
+        for (int i = 0; i < runs; i++) {
+            long allocatedBefore = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+            CursorPage<InvoiceListVO> page = invoiceService.getInvoiceList(request, mode);
+            long elapsed = System.nanoTime() - start;
+            long allocatedAfter = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+            
+            rows = page.getItems().size();
+            totalNanos += elapsed;
+            minNanos = Math.min(minNanos, elapsed);
+            maxNanos = Math.max(maxNanos, elapsed);
+            totalAllocated += allocatedAfter - allocatedBefore;
+        }
+        
+        ListReadBenchmarkVO vo = new ListReadBenchmarkVO();
+        vo.setMode(mode.getCode());
+        vo.setIterations(runs);
+        vo.setRows(rows);
+        vo.setAvgMillis(totalNanos / (double) runs / 1_000_000);
+        vo.setMinMillis(minNanos / 1_000_000.0);
+        vo.setMaxMillis(maxNanos / 1_000_000.0);
+        if (allocationBean != null) {
+            long avgAllocated = totalAllocated / runs;
+            vo.setAvgAllocatedBytes(avgAllocated);
+            vo.setAllocatedBytesPerRow(rows > 0 ? avgAllocated / rows : null);
+        }
+        return vo;
+    }
+    
+    /**
+     * 从数据字典采集单个视图的列定义
+     */
+    private ViewSchemaVO captureViewSchema(String viewName) {
+        ViewSchemaVO schema = new ViewSchemaVO();
+        schema.setOwner(OWNER);
+        schema.setViewName(viewName);
+        schema.setCapturedAt(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+        try {
+            List<ViewColumnVO> columns = jdbcTemplate.query(
+                    "SELECT COLUMN_NAME, DATA_TYPE, COLUMN_ID " +
+                    "FROM ALL_TAB_COLUMNS " +
+                    "WHERE OWNER = ? AND TABLE_NAME = ? " +
+                    "ORDER BY COLUMN_ID",
+                    (rs, rowNum) -> new ViewColumnVO(
+                            rs.getString("COLUMN_NAME"),
+                            rs.getString("DATA_TYPE"),
+                            rs.getInt("COLUMN_ID")),
+                    OWNER, viewName);
+            schema.setColumns(columns);
+        } catch (Exception e) {
+            log.warn("采集视图结构失败：{}.{} - {}", OWNER, viewName, e.getMessage());
+            schema.setColumns(Collections.emptyList());
+            schema.setError(e.getMessage());
+        }
+        return schema;
+    }
+    
+    /**
+     * 描述字段值及其JDBC类型
+     * byte[]（GBK字节列）按GBK解码，方便直接核对中文是否正确
+     */
+    private Map<String, Object> describeValue(Object value) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        if (value instanceof byte[]) {
+            described.put("value", EncodingConverter.decodeGbk((byte[]) value));
+        } else {
+            described.put("value", value != null ? value.toString() : null);
+        }
+        described.put("type", value != null ? value.getClass().getSimpleName() : "null");
+        return described;
+    }
+}
@@ -1,31 +1,70 @@
 package com.hospital.invoice.service.impl;
 
+import cn.hutool.crypto.digest.DigestUtil;
+import com.hospital.invoice.cache.InvoiceDetailCache;
+import com.hospital.invoice.cache.InvoiceNegativeCache;
+import com.hospital.invoice.cache.InvoiceListCache;
+import com.hospital.invoice.cache.InvoiceOwnershipIndex;
+import com.hospital.invoice.common.BusinessException;
+import com.hospital.invoice.common.CursorPage;
 import com.hospital.invoice.dto.request.InvoiceDetailRequest;
 import com.hospital.invoice.dto.request.InvoiceDownloadRequest;
 import com.hospital.invoice.dto.request.InvoiceListRequest;
 import com.hospital.invoice.dto.request.SendEmailRequest;
+import com.hospital.invoice.dto.response.InvoiceDetailBatchItemVO;
 import com.hospital.invoice.dto.response.InvoiceDetailVO;
 import com.hospital.invoice.dto.response.InvoiceListVO;
+import com.hospital.invoice.dto.response.InvoiceSummaryItemVO;
+import com.hospital.invoice.dto.response.InvoiceSummaryVO;
 import com.hospital.invoice.dto.response.SendEmailVO;
+import com.hospital.invoice.entity.view.InvoiceDetailCore;
+import com.hospital.invoice.entity.view.InvoiceDetailCoreView;
 import com.hospital.invoice.entity.view.InvoiceDetailView;
 import com.hospital.invoice.entity.view.InvoiceListView;
-import com.hospital.invoice.entity.view.InvoiceListViewSimple;
+import com.hospital.invoice.enums.DetailLookupResult;
+import com.hospital.invoice.enums.InvoiceStatus;
+import com.hospital.invoice.enums.InvoiceType;
+import com.hospital.invoice.enums.ListReadMode;
+import com.hospital.invoice.pdf.InvoicePdf;
+import com.hospital.invoice.pdf.InvoicePdfRenderer;
+import com.hospital.invoice.pdf.PdfDiskCache;
+import com.hospital.invoice.pdf.PdfLocator;
+import com.hospital.invoice.pdf.PdfWorkerPool;
+import com.hospital.invoice.repository.InvoiceDetailCoreViewRepository;
 import com.hospital.invoice.repository.InvoiceDetailViewRepository;
+import com.hospital.invoice.repository.InvoiceListJdbcRepository;
+import com.hospital.invoice.repository.InvoiceListQueryBuilder;
 import com.hospital.invoice.repository.InvoiceListViewRepository;
-import com.hospital.invoice.repository.InvoiceListViewSimpleRepository;
+import com.hospital.invoice.service.InvoiceAccessResult;
 import com.hospital.invoice.service.InvoiceService;
+import com.hospital.invoice.util.ContentVersion;
+import com.hospital.invoice.util.InvoiceListCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
-import javax.persistence.criteria.Predicate;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 发票服务实现类
@@ -43,6 +82,8 @@ import java.util.Optional;
 @Service
 public class InvoiceServiceImpl implements InvoiceService {
     
+    private static final Logger log = LoggerFactory.getLogger(InvoiceServiceImpl.class);
+    
     /**
      * 注入发票列表视图数据访问层
      * 用于查询发票列表数据
@@ -51,10 +92,24 @@ public class InvoiceServiceImpl implements InvoiceService {
     private InvoiceListViewRepository invoiceListViewRepository;
     
     /**
-     * 简化版Repository - 用于测试
+     * 注入发票列表JDBC数据访问层
+     * 用于以行映射方式直接查询列表VO
+     */
+    @Autowired
+    private InvoiceListJdbcRepository invoiceListJdbcRepository;
+    
+    /**
+     * 注入发票列表查询SQL构建器
+     * JPA方式与JDBC方式共用同一套SQL形状
      */
     @Autowired
-    private InvoiceListViewSimpleRepository invoiceListViewSimpleRepository;
+    private InvoiceListQueryBuilder invoiceListQueryBuilder;
+    
+    /**
+     * 注入发票列表结果缓存
+     */
+    @Autowired
+    private InvoiceListCache invoiceListCache;
     
     /**
      * 注入发票详情视图数据访问层
@@ -63,12 +118,115 @@ public class InvoiceServiceImpl implements InvoiceService {
     @Autowired
     private InvoiceDetailViewRepository invoiceDetailViewRepository;
     
+    /**
+     * 注入发票详情核心字段数据访问层
+     * 用于权限校验（只查询核心字段）
+     */
+    @Autowired
+    private InvoiceDetailCoreViewRepository invoiceDetailCoreViewRepository;
+    
+    /**
+     * 注入发票详情缓存
+     */
+    @Autowired
+    private InvoiceDetailCache invoiceDetailCache;
+    
+    /**
+     * 注入发票归属索引
+     * 用于在内存中判断发票是否属于患者
+     */
+    @Autowired
+    private InvoiceOwnershipIndex invoiceOwnershipIndex;
+    
+    /**
+     * 注入发票否定查询缓存
+     * 用于拦截短时间内重复查询不存在或无权访问的发票
+     */
+    @Autowired
+    private InvoiceNegativeCache invoiceNegativeCache;
+    
+    /**
+     * 注入PDF文件定位
+     * 用于把 PDF_URL 解析为本地文件或远程地址
+     */
+    @Autowired
+    private PdfLocator pdfLocator;
+    
+    /**
+     * 注入PDF磁盘缓存
+     * 用于缓存远程PDF，避免每次下载都访问电子发票平台
+     */
+    @Autowired
+    private PdfDiskCache pdfDiskCache;
+    
+    /**
+     * 注入发票PDF生成
+     * 用于没有外部PDF文件的发票
+     */
+    @Autowired
+    private InvoicePdfRenderer invoicePdfRenderer;
+    
+    /**
+     * 注入PDF生成/下载线程池
+     * 生成PDF不占用请求线程，繁忙时快速拒绝
+     */
+    @Autowired
+    private PdfWorkerPool pdfWorkerPool;
+    
     /**
      * 注入 EntityManager 用于原生SQL查询
      */
     @PersistenceContext
     private EntityManager entityManager;
     
+    /**
+     * 发票列表默认每页条数
+     */
+    @Value("${invoice.list.default-page-size:20}")
+    private int defaultPageSize;
+    
+    /**
+     * 发票列表每页条数上限
+     */
+    @Value("${invoice.list.max-page-size:100}")
+    private int maxPageSize;
+    
+    /**
+     * 发票列表读取方式：JPA-实体方式，JDBC-行映射方式
+     */
+    @Value("${invoice.list.read-mode:JPA}")
+    private ListReadMode listReadMode;
+    
+    /**
+     * 多患者查询一次最多的患者数
+     */
+    @Value("${invoice.list.batch.max-patients:10}")
+    private int batchMaxPatients;
+    
+    /**
+     * 最新发票查询默认返回条数
+     */
+    @Value("${invoice.list.latest.default-limit:5}")
+    private int latestDefaultLimit;
+    
+    /**
+     * 最新发票查询返回条数上限
+     */
+    @Value("${invoice.list.latest.max-limit:10}")
+    private int latestMaxLimit;
+    
+    /**
+     * 批量详情查询一次最多的发票数
+     */
+    @Value("${invoice.detail.batch.max-ids:50}")
+    private int detailBatchMaxIds;
+    
+    /**
+     * 流式查询每次从数据库获取的行数
+     */
+    @Value("${invoice.list.stream-fetch-size:500}")
+    private int streamFetchSize;
+    
     // TODO: 注入邮件服务（用于发送发票到邮箱功能）
     // @Autowired
     // private JavaMailSender mailSender;
@@ -77,136 +235,275 @@ public class InvoiceServiceImpl implements InvoiceService {
     /**
      * 查询发票列表
      * 从视图 comm.invoice_list_view 查询数据
+     * 
+     * 分页方式：按 CREATE_TIME DESC, RCPT_NO 排序的键集分页，
+     * 多查一条用于判断是否有下一页，不执行count查询
      */
     @Override
-    public List<InvoiceListVO> getInvoiceList(InvoiceListRequest request) throws Exception {
-        // 步骤1：构建动态查询条件
-        Specification<InvoiceListView> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            
-            // 必填条件：患者ID
-            predicates.add(cb.equal(root.get("patientId"), request.getPatientId()));
-            
-            // 可选条件：患者姓名（模糊查询）
-            if (request.getPatientName() != null && !request.getPatientName().trim().isEmpty()) {
-                predicates.add(cb.like(root.get("patientName"), "%" + request.getPatientName() + "%"));
-            }
-            
-            // 可选条件：手机号码
-            if (request.getPhoneNumber() != null && !request.getPhoneNumber().trim().isEmpty()) {
-                predicates.add(cb.like(root.get("phoneNumber"), "%" + request.getPhoneNumber() + "%"));
-            }
-            
-            // 可选条件：发票类型
-            if (request.getInvoiceType() != null && !request.getInvoiceType().trim().isEmpty()) {
-                predicates.add(cb.equal(root.get("invoiceType"), request.getInvoiceType()));
-            }
-            
-            // 可选条件：发票状态
-            if (request.getStatus() != null && !request.getStatus().trim().isEmpty()) {
-                predicates.add(cb.equal(root.get("status"), request.getStatus()));
-            }
-            
-            // 可选条件：开始日期
-            if (request.getStartDate() != null && !request.getStartDate().trim().isEmpty()) {
-                LocalDate startDate = LocalDate.parse(request.getStartDate());
-                predicates.add(cb.greaterThanOrEqualTo(root.get("createTime"), startDate.atStartOfDay()));
-            }
-            
-            // 可选条件：结束日期
-            if (request.getEndDate() != null && !request.getEndDate().trim().isEmpty()) {
-                LocalDate endDate = LocalDate.parse(request.getEndDate());
-                predicates.add(cb.lessThanOrEqualTo(root.get("createTime"), endDate.plusDays(1).atStartOfDay()));
+    public CursorPage<InvoiceListVO> getInvoiceList(InvoiceListRequest request) throws Exception {
+        // 日期格式在查询缓存和生成SQL之前统一校验
+        validateDateRange(request);
+        if (!invoiceListCache.isEnabled()) {
+            return getInvoiceList(request, listReadMode);
+        }
+        
+        // 步骤1：规范化查询条件，先查缓存（分页结果缓存 / 患者快照）
+        InvoiceListRequest normalized = InvoiceListCache.normalize(request);
+        int pageSize = resolvePageSize(normalized.getPageSize());
+        InvoiceListCursor cursor = InvoiceListCursor.decode(normalized.getCursor());
+        CursorPage<InvoiceListVO> page = invoiceListCache.get(normalized, cursor, pageSize);
+        if (page != null) {
+            return page;
+        }
+        
+        // 步骤2：快照能回答的请求，加载患者未筛选的完整列表建立快照，再从快照中取页
+        if (invoiceListCache.shouldLoadSnapshot(normalized)) {
+            InvoiceListRequest unfiltered = new InvoiceListRequest();
+            unfiltered.setPatientId(normalized.getPatientId());
+            CursorPage<InvoiceListVO> all = findInvoicePage(unfiltered, null,
+                    invoiceListCache.getMaxRowsPerPatient(), listReadMode);
+            invoiceListCache.putSnapshot(normalized.getPatientId(), all.getItems(), !all.hasMore());
+            page = invoiceListCache.pageFromSnapshot(normalized, cursor, pageSize);
+            if (page != null) {
+                return page;
             }
-            
-            // 组合所有条件（AND关系）
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        
-        // 临时使用简化版测试
-        System.out.println("=== 使用简化版测试 ===");
-        List<InvoiceListViewSimple> simpleList = invoiceListViewSimpleRepository.findByPatientId(request.getPatientId());
-        System.out.println("简化版查询到的记录数: " + (simpleList != null ? simpleList.size() : 0));
-        
-        if (simpleList != null && !simpleList.isEmpty()) {
-            for (int i = 0; i < simpleList.size(); i++) {
-                InvoiceListViewSimple simple = simpleList.get(i);
-                if (simple != null) {
-                    System.out.println("简化版数据[" + i + "] - " +
-                                     "收据号: " + simple.getRcptNo() + 
-                                     ", 发票ID: " + simple.getInvoiceId() + 
-                                     ", 患者: " + simple.getPatientName() + 
-                                     ", 发票号: " + simple.getInvoiceNo());
-                } else {
-                    System.out.println("警告：列表中索引[" + i + "]的对象为null");
+        }
+        
+        // 步骤3：快照无法回答（按姓名/手机号筛选，或患者发票过多），按条件查询并缓存该页
+        page = findInvoicePage(normalized, cursor, pageSize, listReadMode);
+        invoiceListCache.putPage(normalized, pageSize, page);
+        return page;
+    }
+    
+    /**
+     * 以指定的读取方式查询发票列表（不经过缓存）
+     */
+    @Override
+    public CursorPage<InvoiceListVO> getInvoiceList(InvoiceListRequest request, ListReadMode mode) throws Exception {
+        validateDateRange(request);
+        int pageSize = resolvePageSize(request.getPageSize());
+        InvoiceListCursor cursor = InvoiceListCursor.decode(request.getCursor());
+        return findInvoicePage(request, cursor, pageSize, mode);
+    }
+    
+    /**
+     * 按读取方式查询一页发票列表
+     */
+    private CursorPage<InvoiceListVO> findInvoicePage(InvoiceListRequest request, InvoiceListCursor cursor,
+                                                      int pageSize, ListReadMode mode) {
+        if (mode == ListReadMode.JDBC) {
+            // 行映射方式：结果集直接映射为VO，不经过Hibernate实体
+            return invoiceListJdbcRepository.findPage(request, cursor, pageSize);
+        }
+        return findInvoicePageWithJpa(request, cursor, pageSize);
+    }
+    
+    /**
+     * 多患者查询发票列表
+     * 一条SQL（患者ID IN列表 + 按患者分区取前N条）查出所有患者的第一页，
+     * 只支持JDBC行映射方式，不经过缓存
+     */
+    @Override
+    public Map<String, CursorPage<InvoiceListVO>> getInvoiceListBatch(InvoiceListRequest request) throws Exception {
+        // 去除空白和重复的患者ID，保持请求中的顺序
+        Set<String> patientIds = new LinkedHashSet<>();
+        if (request.getPatientIds() != null) {
+            for (String patientId : request.getPatientIds()) {
+                if (patientId != null && !patientId.trim().isEmpty()) {
+                    patientIds.add(patientId.trim());
                 }
             }
         }
+        if (patientIds.isEmpty()) {
+            throw new BusinessException(400, "患者ID列表不能为空");
+        }
+        if (patientIds.size() > batchMaxPatients) {
+            throw new BusinessException(400, "患者ID数量不能超过" + batchMaxPatients + "个");
+        }
         
-        // 使用原生SQL测试 - 查询所有字段
-        System.out.println("=== 使用原生SQL测试（查询所有字段）===");
-        try {
-            String nativeSql = "SELECT * FROM COMM.INVOICE_LIST_VIEW WHERE PATIENT_ID = ? AND ROWNUM <= 2";
-            Query query = entityManager.createNativeQuery(nativeSql);
-            query.setParameter(1, request.getPatientId());
-            @SuppressWarnings("unchecked")
-            List<Object[]> results = query.getResultList();
-            
-            System.out.println("原生SQL查询到的记录数: " + results.size());
-            if (!results.isEmpty()) {
-                Object[] firstRow = results.get(0);
-                System.out.println("第一条记录的字段数量: " + firstRow.length);
-                for (int j = 0; j < firstRow.length; j++) {
-                    Object value = firstRow[j];
-                    String type = (value != null) ? value.getClass().getSimpleName() : "null";
-                    System.out.println("  字段[" + j + "]: " + value + " (类型: " + type + ")");
-                }
+        validateDateRange(request);
+        int pageSize = resolvePageSize(request.getPageSize());
+        return invoiceListJdbcRepository.findFirstPages(request, new ArrayList<>(patientIds), pageSize);
+    }
+    
+    /**
+     * 查询患者最新的N张发票
+     * 患者快照已缓存时直接取快照前N条，否则由Oracle完成排序和Top-N截取
+     */
+    @Override
+    public List<InvoiceListVO> getLatestInvoices(String patientId, Integer limit) throws Exception {
+        String normalizedPatientId = patientId.trim();
+        int n = limit == null || limit <= 0 ? latestDefaultLimit : Math.min(limit, latestMaxLimit);
+        
+        if (invoiceListCache.isEnabled()) {
+            List<InvoiceListVO> cached = invoiceListCache.latestFromSnapshot(normalizedPatientId, n);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return convertToListVOs(invoiceListViewRepository.findLatestByPatientId(normalizedPatientId, n));
+    }
+    
+    /**
+     * 校验发票列表查询条件
+     */
+    @Override
+    public void validateListRequest(InvoiceListRequest request) {
+        validateDateRange(request);
+        InvoiceListCursor.decode(request.getCursor());
+    }
+    
+    /**
+     * 流式查询发票列表
+     * 只支持JDBC行映射方式：JPA方式会把结果加载进持久化上下文，无法做到内存恒定
+     */
+    @Override
+    public void streamInvoiceList(InvoiceListRequest request, Consumer<InvoiceListVO> consumer) throws Exception {
+        validateDateRange(request);
+        InvoiceListCursor cursor = InvoiceListCursor.decode(request.getCursor());
+        invoiceListJdbcRepository.streamAll(request, cursor, streamFetchSize, consumer);
+    }
+    
+    /**
+     * 查询患者发票汇总
+     * 数据库只执行一次 GROUP BY（类型 + 状态 + 月份），单一维度的合计在明细分组上计算；
+     * 结果按患者缓存，与列表缓存一起失效
+     */
+    @Override
+    public InvoiceSummaryVO getInvoiceSummary(String patientId) throws Exception {
+        String normalizedPatientId = patientId.trim();
+        if (invoiceListCache.isEnabled()) {
+            InvoiceSummaryVO cached = invoiceListCache.getSummary(normalizedPatientId);
+            if (cached != null) {
+                return cached;
             }
-        } catch (Exception e) {
-            System.err.println("原生SQL查询失败: " + e.getMessage());
-            e.printStackTrace();
         }
         
-        // 查询视图列信息
-        System.out.println("=== 查询视图列定义 ===");
-        try {
-            String columnSql = "SELECT COLUMN_NAME, DATA_TYPE, COLUMN_ID " +
-                             "FROM ALL_TAB_COLUMNS " +
-                             "WHERE OWNER = 'COMM' AND TABLE_NAME = 'INVOICE_LIST_VIEW' " +
-                             "ORDER BY COLUMN_ID";
-            Query columnQuery = entityManager.createNativeQuery(columnSql);
-            @SuppressWarnings("unchecked")
-            List<Object[]> columns = columnQuery.getResultList();
+        List<InvoiceSummaryItemVO> groups = invoiceListJdbcRepository.findSummaryGroups(normalizedPatientId);
+        
+        Map<String, InvoiceSummaryItemVO> byType = new LinkedHashMap<>();
+        Map<String, InvoiceSummaryItemVO> byStatus = new LinkedHashMap<>();
+        Map<String, InvoiceSummaryItemVO> byMonth = new LinkedHashMap<>();
+        long totalCount = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (InvoiceSummaryItemVO group : groups) {
+            fillLabels(group);
             
-            System.out.println("视图列数: " + columns.size());
-            for (Object[] col : columns) {
-                System.out.println("  列: " + col[0] + " (类型: " + col[1] + ", 顺序: " + col[2] + ")");
+            InvoiceSummaryItemVO type = byType.computeIfAbsent(String.valueOf(group.getInvoiceType()), key -> {
+                InvoiceSummaryItemVO item = new InvoiceSummaryItemVO();
+                item.setInvoiceType(group.getInvoiceType());
+                item.setInvoiceTypeLabel(group.getInvoiceTypeLabel());
+                return item;
+            });
+            InvoiceSummaryItemVO status = byStatus.computeIfAbsent(String.valueOf(group.getStatus()), key -> {
+                InvoiceSummaryItemVO item = new InvoiceSummaryItemVO();
+                item.setStatus(group.getStatus());
+                item.setStatusLabel(group.getStatusLabel());
+                return item;
+            });
+            // 分组已按月份倒序，按首次出现的顺序即为月份倒序
+            InvoiceSummaryItemVO month = byMonth.computeIfAbsent(group.getMonth(), key -> {
+                InvoiceSummaryItemVO item = new InvoiceSummaryItemVO();
+                item.setMonth(key);
+                return item;
+            });
+            addTo(type, group);
+            addTo(status, group);
+            addTo(month, group);
+            
+            totalCount += group.getCount();
+            // 已作废、已冲红的发票不计入金额总计（按状态合计中仍可看到这部分金额）
+            if (!isVoided(group.getStatus())) {
+                totalAmount = totalAmount.add(new BigDecimal(group.getAmount()));
             }
-        } catch (Exception e) {
-            System.err.println("查询列信息失败: " + e.getMessage());
         }
         
-        // 步骤2：查询数据库视图
-        List<InvoiceListView> viewList = invoiceListViewRepository.findAll(spec);
+        InvoiceSummaryVO summary = new InvoiceSummaryVO();
+        summary.setPatientId(normalizedPatientId);
+        summary.setTotalCount(totalCount);
+        summary.setTotalAmount(totalAmount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+        summary.setByType(new ArrayList<>(byType.values()));
+        summary.setByStatus(new ArrayList<>(byStatus.values()));
+        summary.setByMonth(new ArrayList<>(byMonth.values()));
+        summary.setGroups(groups);
+        
+        if (invoiceListCache.isEnabled()) {
+            invoiceListCache.putSummary(normalizedPatientId, summary);
+        }
+        return summary;
+    }
+    
+    /**
+     * 是否为已作废或已冲红的发票（金额无效）
+     */
+    private static boolean isVoided(String status) {
+        InvoiceStatus invoiceStatus = status != null ? InvoiceStatus.fromCode(status) : null;
+        return invoiceStatus == InvoiceStatus.CANCELLED || invoiceStatus == InvoiceStatus.REVERSED;
+    }
+    
+    /**
+     * 根据枚举填充汇总项的中文标签，未知代码直接使用代码本身
+     */
+    private static void fillLabels(InvoiceSummaryItemVO item) {
+        InvoiceType type = item.getInvoiceType() != null ? InvoiceType.fromCode(item.getInvoiceType()) : null;
+        item.setInvoiceTypeLabel(type != null ? type.getLabel() : item.getInvoiceType());
+        InvoiceStatus status = item.getStatus() != null ? InvoiceStatus.fromCode(item.getStatus()) : null;
+        item.setStatusLabel(status != null ? status.getLabel() : item.getStatus());
+    }
+    
+    /**
+     * 将一个明细分组累加到合计项
+     */
+    private static void addTo(InvoiceSummaryItemVO total, InvoiceSummaryItemVO group) {
+        long count = total.getCount() != null ? total.getCount() : 0;
+        BigDecimal amount = total.getAmount() != null ? new BigDecimal(total.getAmount()) : BigDecimal.ZERO;
+        total.setCount(count + group.getCount());
+        total.setAmount(amount.add(new BigDecimal(group.getAmount())).toPlainString());
+    }
+    
+    /**
+     * JPA实体方式查询一页发票列表
+     */
+    private CursorPage<InvoiceListVO> findInvoicePageWithJpa(InvoiceListRequest request, InvoiceListCursor cursor,
+                                                             int pageSize) {
+        // 步骤1：按条件生成固定形状的SQL（只含实际传入的条件，值全部为绑定变量），多查一条判断是否有下一页
+        InvoiceListQueryBuilder.ListQuery listQuery = invoiceListQueryBuilder.buildPage(request, cursor, pageSize + 1);
+        
+        // 步骤2：查询数据库视图（诊断类查询已移至 InvoiceDiagnosticsService，这里只执行一次查询）
+        Query query = entityManager.createNativeQuery(listQuery.getSql(), InvoiceListView.class);
+        Object[] params = listQuery.getParams();
+        for (int i = 0; i < params.length; i++) {
+            query.setParameter(i + 1, params[i]);
+        }
+        @SuppressWarnings("unchecked")
+        List<InvoiceListView> viewList = query.getResultList();
         
-        // 添加日志：查看查询结果
-        System.out.println("完整版查询到的记录数: " + (viewList != null ? viewList.size() : 0));
+        // 多查出的一条说明还有下一页，游标取本页最后一行的排序键
+        String nextCursor = null;
+        if (viewList.size() > pageSize) {
+            viewList = viewList.subList(0, pageSize);
+            InvoiceListView last = viewList.get(pageSize - 1);
+            nextCursor = new InvoiceListCursor(last.getCreateTime(), last.getRcptNo()).encode();
+        }
         
         // 步骤3：将视图实体转换为VO对象
+        return new CursorPage<>(convertToListVOs(viewList), nextCursor);
+    }
+    
+    /**
+     * 将列表视图实体转换为VO对象，转换出错的记录跳过
+     */
+    private List<InvoiceListVO> convertToListVOs(List<InvoiceListView> viewList) {
         List<InvoiceListVO> resultList = new ArrayList<>();
         
-        if (viewList == null || viewList.isEmpty()) {
+        if (viewList.isEmpty()) {
             return resultList;  // 如果没有数据，直接返回空列表
         }
         
         for (InvoiceListView view : viewList) {
             try {
-                // 添加日志：查看每条记录
-                System.out.println("处理记录 - 收据号: " + (view != null ? view.getRcptNo() : "null") + 
-                                 ", 发票ID: " + (view != null ? view.getInvoiceId() : "null"));
-                
                 if (view == null) {
-                    System.out.println("警告：视图对象为null，跳过");
+                    log.warn("发票列表视图对象为null，跳过");
                     continue;
                 }
                 
@@ -225,7 +522,7 @@ public class InvoiceServiceImpl implements InvoiceService {
                 if (view.getAmount() != null) {
                     vo.setAmount(view.getAmount().toString());
                 } else {
-                    System.out.println("警告：发票金额为null");
+                    log.warn("发票金额为null：rcptNo={}", view.getRcptNo());
                 }
                 
                 // 格式化时间（添加空值检查）
@@ -236,7 +533,7 @@ public class InvoiceServiceImpl implements InvoiceService {
                     vo.setCreateTime(sdf1.format(view.getCreateTime()));
                     vo.setDisplayTime(sdf2.format(view.getCreateTime()));
                 } else {
-                    System.out.println("警告：创建时间为null");
+                    log.warn("发票创建时间为null：rcptNo={}", view.getRcptNo());
                 }
                 
                 vo.setStatus(view.getStatus());
@@ -253,8 +550,7 @@ public class InvoiceServiceImpl implements InvoiceService {
                 resultList.add(vo);
                 
             } catch (Exception e) {
-                System.err.println("转换发票数据时出错: " + e.getMessage());
-                e.printStackTrace();
+                log.warn("转换发票数据时出错：rcptNo={} - {}", view != null ? view.getRcptNo() : null, e.getMessage());
                 // 跳过这条记录，继续处理下一条
                 continue;
             }
@@ -263,24 +559,281 @@ public class InvoiceServiceImpl implements InvoiceService {
         return resultList;
     }
     
+    /**
+     * 计算实际每页条数：未传使用默认值，超过上限按上限处理
+     */
+    private int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+    
+    /**
+     * 校验开始日期、结束日期的格式（yyyy-MM-dd）
+     * 列表缓存和SQL生成直接按该格式解析日期，格式错误时在此处返回400，不作为系统异常处理
+     * 
+     * @throws BusinessException 日期格式错误时抛出（错误码400）
+     */
+    private static void validateDateRange(InvoiceListRequest request) {
+        validateDate(request.getStartDate(), "开始日期");
+        validateDate(request.getEndDate(), "结束日期");
+    }
+    
+    private static void validateDate(String date, String name) {
+        if (date == null || date.trim().isEmpty()) {
+            return;
+        }
+        try {
+            LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(400, "日期格式错误：" + name + "应为yyyy-MM-dd");
+        }
+    }
+    
     /**
      * 查询发票详情
      * 从视图 comm.invoice_detail_view 查询数据
      */
     @Override
     public InvoiceDetailVO getInvoiceDetail(InvoiceDetailRequest request) throws Exception {
-        // 步骤1：从视图查询发票详情（带权限校验）
-        Optional<InvoiceDetailView> viewOpt = invoiceDetailViewRepository
-                .findByInvoiceIdAndPatientId(request.getInvoiceId(), request.getPatientId());
+        return getInvoiceDetail(authorizeDetail(request.getInvoiceId(), request.getPatientId()));
+    }
+    
+    /**
+     * 校验患者访问权限并加载发票
+     * 按 发票ID + 患者ID 查询详情视图的核心字段，查到即有权访问，同时返回查出的核心字段；
+     * 校验通过的结果写入详情缓存（按发票状态决定过期时间），命中时不访问数据库；
+     * 查不到的结果写入否定查询缓存，短时间内重复请求直接拒绝
+     */
+    @Override
+    public InvoiceAccessResult authorize(String invoiceId, String patientId) throws Exception {
+        return authorize(invoiceId, patientId, false);
+    }
+    
+    /**
+     * 校验患者访问权限并加载完整的发票详情
+     * 缓存未命中时直接查询完整的详情视图，不再先查核心字段、再按主键加载
+     */
+    @Override
+    public InvoiceAccessResult authorizeDetail(String invoiceId, String patientId) throws Exception {
+        return authorize(invoiceId, patientId, true);
+    }
+    
+    /**
+     * 按 发票ID + 患者ID 校验访问权限
+     * @param fullDetail true-加载完整的详情视图，false-只加载核心字段
+     */
+    private InvoiceAccessResult authorize(String invoiceId, String patientId, boolean fullDetail) {
+        // 归属索引确认发票属于其他患者，直接拒绝，不访问数据库
+        if (invoiceOwnershipIndex.lookup(invoiceId, patientId) == InvoiceOwnershipIndex.Ownership.OTHER_OWNER) {
+            return InvoiceAccessResult.denied();
+        }
+        if (invoiceNegativeCache.get(invoiceId, patientId) != null) {
+            return InvoiceAccessResult.denied();
+        }
+        
+        if (invoiceDetailCache.isEnabled()) {
+            InvoiceDetailCore cached = invoiceDetailCache.get(invoiceId, patientId);
+            if (cached != null) {
+                return InvoiceAccessResult.granted(fullDetail ? loadDetailView(cached) : cached);
+            }
+        }
         
-        // 步骤2：检查发票是否存在
-        if (!viewOpt.isPresent()) {
-            throw new Exception("发票不存在或无权访问");
+        // 发送邮件、下载PDF只查询核心字段，金额、备注等详情字段在查询详情时才加载
+        Optional<? extends InvoiceDetailCore> found = fullDetail
+                ? invoiceDetailViewRepository.findByInvoiceIdAndPatientId(invoiceId, patientId)
+                : invoiceDetailCoreViewRepository.findByInvoiceIdAndPatientId(invoiceId, patientId);
+        if (!found.isPresent()) {
+            // 查询条件带患者ID，不区分发票不存在和属于其他患者
+            invoiceNegativeCache.put(invoiceId, patientId, DetailLookupResult.NOT_FOUND);
+            return InvoiceAccessResult.denied();
         }
         
-        InvoiceDetailView view = viewOpt.get();
+        InvoiceDetailCore core = found.get();
+        invoiceOwnershipIndex.record(invoiceId, patientId);
+        cacheGranted(core);
+        return InvoiceAccessResult.granted(core);
+    }
+    
+    /**
+     * 按收据号校验患者访问权限并加载发票
+     * 通过 EntityManager.find 按主键查询核心字段（Oracle走唯一索引），再比对患者ID；
+     * 校验通过的结果按 收据号 + 患者ID 写入详情缓存
+     */
+    @Override
+    public InvoiceAccessResult authorizeByRcptNo(String rcptNo, String patientId) throws Exception {
+        return authorizeByRcptNo(rcptNo, patientId, false);
+    }
+    
+    /**
+     * 按收据号校验患者访问权限并加载完整的发票详情
+     */
+    @Override
+    public InvoiceAccessResult authorizeDetailByRcptNo(String rcptNo, String patientId) throws Exception {
+        return authorizeByRcptNo(rcptNo, patientId, true);
+    }
+    
+    /**
+     * 按 收据号 + 患者ID 校验访问权限
+     * @param fullDetail true-加载完整的详情视图，false-只加载核心字段
+     */
+    private InvoiceAccessResult authorizeByRcptNo(String rcptNo, String patientId, boolean fullDetail) {
+        if (invoiceNegativeCache.getByRcptNo(rcptNo, patientId) != null) {
+            return InvoiceAccessResult.denied();
+        }
+        if (invoiceDetailCache.isEnabled()) {
+            InvoiceDetailCore cached = invoiceDetailCache.getByRcptNo(rcptNo, patientId);
+            if (cached != null) {
+                return InvoiceAccessResult.granted(fullDetail ? loadDetailView(cached) : cached);
+            }
+        }
+        
+        InvoiceDetailCore core = fullDetail
+                ? entityManager.find(InvoiceDetailView.class, rcptNo)
+                : entityManager.find(InvoiceDetailCoreView.class, rcptNo);
+        if (core == null || !patientId.equals(core.getPatientId())) {
+            invoiceNegativeCache.putByRcptNo(rcptNo, patientId,
+                    core == null ? DetailLookupResult.NOT_FOUND : DetailLookupResult.FORBIDDEN);
+            return InvoiceAccessResult.denied();
+        }
+        
+        if (core.getInvoiceId() != null) {
+            invoiceOwnershipIndex.record(core.getInvoiceId(), patientId);
+        }
+        cacheGranted(core);
+        return InvoiceAccessResult.granted(core);
+    }
+    
+    /**
+     * 校验通过的发票写入详情缓存（按发票ID和收据号两个键）
+     */
+    private void cacheGranted(InvoiceDetailCore core) {
+        if (!invoiceDetailCache.isEnabled()) {
+            return;
+        }
+        // 缓存的实体跨请求共享，先脱离持久化上下文，避免被当前会话继续管理
+        entityManager.detach(core);
+        if (core.getInvoiceId() != null) {
+            invoiceDetailCache.put(core.getInvoiceId(), core.getPatientId(), core);
+        }
+        invoiceDetailCache.putByRcptNo(core.getRcptNo(), core.getPatientId(), core);
+    }
+    
+    /**
+     * 查询发票详情（使用已校验的访问结果）
+     */
+    @Override
+    public InvoiceDetailVO getInvoiceDetail(InvoiceAccessResult access) throws Exception {
+        // 步骤1：检查访问校验结果（发票不存在或无权访问）
+        InvoiceDetailCore core = requireCore(access);
+        
+        // 步骤2：取得完整的详情视图（访问结果只有核心字段时按主键加载）
+        InvoiceDetailView view = loadDetailView(core);
         
         // 步骤3：将视图实体转换为VO对象
+        return convertToDetailVO(view);
+    }
+    
+    /**
+     * 批量查询发票详情
+     * 先查详情缓存，未命中的发票ID用一次IN查询加载，再逐张判断是否属于该患者
+     */
+    @Override
+    public List<InvoiceDetailBatchItemVO> getInvoiceDetails(String patientId, List<String> invoiceIds) throws Exception {
+        // 去除空白和重复的发票ID，保持请求中的顺序
+        Set<String> ids = new LinkedHashSet<>();
+        if (invoiceIds != null) {
+            for (String invoiceId : invoiceIds) {
+                if (invoiceId != null && !invoiceId.trim().isEmpty()) {
+                    ids.add(invoiceId.trim());
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new BusinessException(400, "发票ID列表不能为空");
+        }
+        if (ids.size() > detailBatchMaxIds) {
+            throw new BusinessException(400, "发票ID数量不能超过" + detailBatchMaxIds + "个");
+        }
+        
+        // 步骤1：先查归属索引、否定查询缓存和详情缓存
+        Map<String, InvoiceDetailView> granted = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+        Set<String> forbidden = new HashSet<>();
+        for (String invoiceId : ids) {
+            // 归属索引确认属于其他患者的发票不再加载
+            if (invoiceOwnershipIndex.lookup(invoiceId, patientId) == InvoiceOwnershipIndex.Ownership.OTHER_OWNER) {
+                forbidden.add(invoiceId);
+                continue;
+            }
+            // 近期已查不到的发票不再加载（未标记为无权访问的按不存在返回）
+            DetailLookupResult known = invoiceNegativeCache.get(invoiceId, patientId);
+            if (known != null) {
+                if (known == DetailLookupResult.FORBIDDEN) {
+                    forbidden.add(invoiceId);
+                }
+                continue;
+            }
+            InvoiceDetailCore cached = invoiceDetailCache.isEnabled() ? invoiceDetailCache.get(invoiceId, patientId) : null;
+            // 缓存中只有核心字段的发票仍需加载完整详情
+            if (cached instanceof InvoiceDetailView) {
+                granted.put(invoiceId, (InvoiceDetailView) cached);
+            } else {
+                toLoad.add(invoiceId);
+            }
+        }
+        
+        // 步骤2：未命中的发票一次IN查询加载；查到但不属于该患者的记为无权访问
+        if (!toLoad.isEmpty()) {
+            for (InvoiceDetailView view : invoiceDetailViewRepository.findByInvoiceIdIn(toLoad)) {
+                invoiceOwnershipIndex.record(view.getInvoiceId(), view.getPatientId());
+                if (patientId.equals(view.getPatientId())) {
+                    granted.put(view.getInvoiceId(), view);
+                    if (invoiceDetailCache.isEnabled()) {
+                        entityManager.detach(view);
+                        invoiceDetailCache.put(view.getInvoiceId(), patientId, view);
+                    }
+                } else {
+                    forbidden.add(view.getInvoiceId());
+                }
+            }
+            // 记录查不到的发票，短时间内重复请求不再访问数据库
+            for (String invoiceId : toLoad) {
+                if (forbidden.contains(invoiceId)) {
+                    invoiceNegativeCache.put(invoiceId, patientId, DetailLookupResult.FORBIDDEN);
+                } else if (!granted.containsKey(invoiceId)) {
+                    invoiceNegativeCache.put(invoiceId, patientId, DetailLookupResult.NOT_FOUND);
+                }
+            }
+        }
+        
+        // 步骤3：按请求顺序逐张给出结果
+        List<InvoiceDetailBatchItemVO> results = new ArrayList<>(ids.size());
+        for (String invoiceId : ids) {
+            InvoiceDetailBatchItemVO item = new InvoiceDetailBatchItemVO();
+            item.setInvoiceId(invoiceId);
+            DetailLookupResult result;
+            InvoiceDetailView view = granted.get(invoiceId);
+            if (view != null) {
+                result = DetailLookupResult.OK;
+                item.setDetail(convertToDetailVO(view));
+            } else if (forbidden.contains(invoiceId)) {
+                result = DetailLookupResult.FORBIDDEN;
+            } else {
+                result = DetailLookupResult.NOT_FOUND;
+            }
+            item.setResult(result.getCode());
+            item.setMessage(result.getLabel());
+            results.add(item);
+        }
+        return results;
+    }
+    
+    /**
+     * 将详情视图实体转换为VO对象
+     */
+    private InvoiceDetailVO convertToDetailVO(InvoiceDetailView view) {
         InvoiceDetailVO vo = new InvoiceDetailVO();
         vo.setRcptNo(view.getRcptNo());  // 收据号（主键）
         vo.setInvoiceId(view.getInvoiceId());  // 发票ID（可能为null）
@@ -352,20 +905,21 @@ public class InvoiceServiceImpl implements InvoiceService {
      */
     @Override
     public SendEmailVO sendInvoiceToEmail(SendEmailRequest request) throws Exception {
-        // 步骤1：验证发票是否存在（带权限校验）
-        Optional<InvoiceDetailView> viewOpt = invoiceDetailViewRepository
-                .findByInvoiceIdAndPatientId(request.getInvoiceId(), request.getPatientId());
-        
-        if (!viewOpt.isPresent()) {
-            throw new Exception("发票不存在或无权访问");
-        }
-        
-        InvoiceDetailView view = viewOpt.get();
+        return sendInvoiceToEmail(request, authorize(request.getInvoiceId(), request.getPatientId()));
+    }
+    
+    /**
+     * 发送发票到邮箱（使用已校验的访问结果）
+     */
+    @Override
+    public SendEmailVO sendInvoiceToEmail(SendEmailRequest request, InvoiceAccessResult access) throws Exception {
+        // 步骤1：检查访问校验结果（发票不存在或无权访问）
+        InvoiceDetailCore core = requireCore(access);
         
         // 步骤2：获取PDF文件URL
-        String pdfUrl = view.getPdfUrl();
+        String pdfUrl = core.getPdfUrl();
         if (pdfUrl == null || pdfUrl.isEmpty()) {
-            throw new Exception("PDF文件不存在");
+            throw new BusinessException(30002, "邮件发送失败：PDF文件不存在");
         }
         
         // TODO: 实际的邮件发送实现
@@ -379,10 +933,10 @@ public class InvoiceServiceImpl implements InvoiceService {
         
         helper.setTo(request.getEmail());
         helper.setSubject(request.getEmailTitle() != null ? request.getEmailTitle() : "电子发票");
-        helper.setText("尊敬的" + view.getPatientName() + "，您的电子发票请查收。");
+        helper.setText("尊敬的" + loadDetailView(core).getPatientName() + "，您的电子发票请查收。");
         
         // 3. 添加附件
-        helper.addAttachment("发票_" + view.getInvoiceNo() + ".pdf", 
+        helper.addAttachment("发票_" + core.getInvoiceNo() + ".pdf", 
                            new ByteArrayResource(pdfBytes));
         
         // 4. 发送邮件
@@ -405,69 +959,121 @@ public class InvoiceServiceImpl implements InvoiceService {
     
     /**
      * 下载发票PDF
-     * 从发票详情视图获取PDF URL，然后读取文件
+     * 从发票详情视图获取PDF URL，解析为文件位置
      */
     @Override
-    public byte[] downloadInvoicePdf(InvoiceDownloadRequest request) throws Exception {
-        // 步骤1：查询发票详情（带权限校验）
-        Optional<InvoiceDetailView> viewOpt = invoiceDetailViewRepository
-                .findByInvoiceIdAndPatientId(request.getInvoiceId(), request.getPatientId());
-        
-        if (!viewOpt.isPresent()) {
-            throw new Exception("发票不存在或无权访问");
-        }
-        
-        InvoiceDetailView view = viewOpt.get();
+    public InvoicePdf downloadInvoicePdf(InvoiceDownloadRequest request) throws Exception {
+        return downloadInvoicePdf(authorize(request.getInvoiceId(), request.getPatientId()));
+    }
+    
+    /**
+     * 下载发票PDF（使用已校验的访问结果）
+     * 只定位文件，不读取内容，由控制器通过 PdfStreamer 直接写入响应
+     */
+    @Override
+    public InvoicePdf downloadInvoicePdf(InvoiceAccessResult access) throws Exception {
+        // 步骤1：检查访问校验结果（发票不存在或无权访问）
+        InvoiceDetailCore core = requireCore(access);
         
-        // 步骤2：获取PDF文件路径
-        String pdfUrl = view.getPdfUrl();
+        // 步骤2：获取PDF文件路径，没有外部PDF文件时在本地生成
+        String pdfUrl = core.getPdfUrl();
         if (pdfUrl == null || pdfUrl.isEmpty()) {
-            throw new Exception("PDF文件不存在");
+            return renderInvoicePdf(core);
         }
         
-        // 步骤3：读取PDF文件
-        // TODO: 根据实际PDF存储方式实现
-        /*
-        // 方式1：如果PDF存储在本地文件系统
-        Path path = Paths.get(pdfUrl);
-        if (!Files.exists(path)) {
-            throw new Exception("PDF文件不存在");
-        }
-        byte[] pdfBytes = Files.readAllBytes(path);
-        return pdfBytes;
-        
-        // 方式2：如果PDF存储在远程服务器（HTTP/HTTPS）
-        URL url = new URL(pdfUrl);
-        InputStream in = url.openStream();
-        byte[] pdfBytes = IOUtils.toByteArray(in);
-        in.close();
-        return pdfBytes;
-        
-        // 方式3：如果PDF存储在对象存储（如阿里云OSS、MinIO等）
-        // 使用对应的SDK下载文件
-        */
+        // 步骤3：解析为本地文件或远程地址（本地文件不存在时抛出404）
+        InvoicePdf pdf = pdfLocator.locate(pdfUrl);
+        if (!pdf.isRemote() || !pdfDiskCache.isEnabled() || core.getInvoiceId() == null) {
+            return pdf;
+        }
         
-        throw new Exception("PDF下载功能需要根据实际PDF存储方式实现，请在InvoiceServiceImpl中配置");
+        // 步骤4：远程文件使用本地磁盘缓存（未命中时下载），缓存目录不可用时直接转发远程文件
+        // 下载失败（远程文件不存在、连接失败、超时）直接返回错误，不再重复请求远程服务器
+        try {
+            return pdfDiskCache.get(core.getInvoiceId(), pdf);
+        } catch (PdfDiskCache.StorageException e) {
+            log.warn("PDF磁盘缓存不可用，直接转发远程文件：invoiceId={} - {}", core.getInvoiceId(), e.getMessage());
+            return pdf;
+        }
+    }
+    
+    /**
+     * 按发票详情在本地生成PDF
+     * 启用磁盘缓存时生成结果写入缓存（发票字段不变时不重复生成），否则在内存中生成
+     */
+    private InvoicePdf renderInvoicePdf(InvoiceDetailCore core) throws IOException {
+        // 未开票（没有票据号码）的发票不生成PDF
+        if (!invoicePdfRenderer.isAvailable() || core.getInvoiceNo() == null || core.getInvoiceNo().isEmpty()) {
+            throw new BusinessException(404, "发票PDF文件不存在");
+        }
+        InvoiceDetailView view = loadDetailView(core);
+        if (pdfDiskCache.isEnabled() && view.getInvoiceId() != null) {
+            try {
+                return pdfDiskCache.get(view.getInvoiceId(), invoicePdfRenderer.contentSource(view),
+                        out -> invoicePdfRenderer.render(view, out));
+            } catch (PdfDiskCache.StorageException e) {
+                log.warn("PDF磁盘缓存不可用，在内存中生成：invoiceId={} - {}", view.getInvoiceId(), e.getMessage());
+            }
+        }
+        // 生成结果逐字节确定（创建时间取发票业务日期），ETag按内容哈希生成，修改时间取业务日期，重复生成时不变
+        Date documentDate = invoicePdfRenderer.documentDate(view);
+        long lastModified = documentDate != null ? documentDate.getTime() : -1;
+        return pdfWorkerPool.call(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+            invoicePdfRenderer.render(view, out);
+            byte[] content = out.toByteArray();
+            return InvoicePdf.memory(content, lastModified, ContentVersion.forContent(DigestUtil.sha256Hex(content)));
+        });
     }
     
     /**
      * 校验患者访问权限
-     * 查询发票详情视图，检查患者ID是否匹配
+     * 与 authorize 的判断完全一致：归属索引只用于提前拒绝（确认属于其他患者），
+     * 索引记录的归属不能作为授权依据，其余情况由详情缓存或数据库确认
      */
     @Override
     public boolean validatePatientAccess(String invoiceId, String patientId) throws Exception {
-        // 尝试查询发票（带患者ID条件）
-        Optional<InvoiceDetailView> viewOpt = invoiceDetailViewRepository
-                .findByInvoiceIdAndPatientId(invoiceId, patientId);
-        
         // 如果能查到，说明有权限；查不到说明发票不存在或患者ID不匹配
-        return viewOpt.isPresent();
+        return authorize(invoiceId, patientId).isGranted();
     }
     
     // ========================================
     // 工具方法
     // ========================================
     
+    /**
+     * 取出校验通过的发票核心字段
+     * @param access 访问校验结果
+     * @return 发票核心字段
+     * @throws BusinessException 校验未通过时抛出（错误码403）
+     */
+    private InvoiceDetailCore requireCore(InvoiceAccessResult access) {
+        if (access == null || !access.isGranted()) {
+            throw BusinessException.accessDenied();
+        }
+        return access.getCore();
+    }
+    
+    /**
+     * 取得完整的发票详情视图
+     * 权限校验只加载了核心字段时，按收据号（主键）加载完整字段（可命中Hibernate二级缓存），
+     * 并把详情缓存中的核心字段替换为完整详情，下次查询详情不再加载
+     * @param core 校验通过的发票核心字段
+     * @return 发票详情视图
+     * @throws BusinessException 发票已不存在时抛出（错误码403）
+     */
+    private InvoiceDetailView loadDetailView(InvoiceDetailCore core) {
+        if (core instanceof InvoiceDetailView) {
+            return (InvoiceDetailView) core;
+        }
+        InvoiceDetailView view = entityManager.find(InvoiceDetailView.class, core.getRcptNo());
+        if (view == null || !core.getPatientId().equals(view.getPatientId())) {
+            throw BusinessException.accessDenied();
+        }
+        cacheGranted(view);
+        return view;
+    }
+    
     /**
      * 根据状态代码获取状态标签
      * @param statusCode 状态代码
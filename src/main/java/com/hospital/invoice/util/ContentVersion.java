@@ -0,0 +1,140 @@
+package com.hospital.invoice.util;
+
+import com.hospital.invoice.common.CursorPage;
+import com.hospital.invoice.dto.response.InvoiceDetailVO;
+import com.hospital.invoice.dto.response.InvoiceListVO;
+
+import java.util.List;
+
+/**
+ * 响应内容版本（用于HTTP ETag 条件请求）
+ * 
+ * 说明：
+ * 1. 直接对VO的字段计算64位哈希，不需要先序列化响应体，未变化时省去序列化和传输
+ * 2. 哈希覆盖前端可见的全部业务字段，任一字段变化版本即变化
+ * 3. 返回弱ETag（W/"..."）：版本表示内容语义相同，不保证响应字节完全一致；
+ *    文件下载返回强ETag（由内容哈希生成，内容哈希未知时由文件长度和修改时间生成），可用于 If-Range 断点续传
+ * 4. 响应结构发生变化时递增 VERSION，使客户端缓存全部失效
+ */
+public final class ContentVersion {
+    
+    /**
+     * 版本格式，响应结构变化时递增
+     */
+    private static final String VERSION = "1";
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private long hash = FNV_OFFSET;
+    
+    private ContentVersion() {
+    }
+    
+    /**
+     * 发票列表一页数据的ETag
+     * 
+     * @param page 当前页数据及下一页游标
+     * @return 弱ETag
+     */
+    public static String forList(CursorPage<InvoiceListVO> page) {
+        ContentVersion version = new ContentVersion();
+        List<InvoiceListVO> items = page.getItems();
+        version.add(String.valueOf(items.size()));
+        for (InvoiceListVO vo : items) {
+            version.add(vo.getRcptNo())
+                   .add(vo.getInvoiceId())
+                   .add(vo.getInvoiceNo())
+                   .add(vo.getInvoiceType())
+                   .add(vo.getInvoiceTypeLabel())
+                   .add(vo.getAmount())
+                   .add(vo.getCreateTime())
+                   .add(vo.getStatus())
+                   .add(vo.getStatusLabel())
+                   .add(vo.getPatientName())
+                   .add(vo.getPhoneNumber());
+        }
+        version.add(page.getNextCursor());
+        return version.toETag("l");
+    }
+    
+    /**
+     * 发票详情的ETag
+     * 
+     * @param vo 发票详情
+     * @return 弱ETag
+     */
+    public static String forDetail(InvoiceDetailVO vo) {
+        ContentVersion version = new ContentVersion();
+        version.add(vo.getRcptNo())
+               .add(vo.getInvoiceId())
+               .add(vo.getInvoiceNo())
+               .add(vo.getInvoiceType())
+               .add(vo.getInvoiceTypeLabel())
+               .add(vo.getAmount())
+               .add(vo.getCreateTime())
+               .add(vo.getStatus())
+               .add(vo.getStatusLabel())
+               .add(vo.getPatientName())
+               .add(vo.getPhoneNumber())
+               .add(vo.getIdCard())
+               .add(vo.getBusinessDate())
+               .add(vo.getDeptOrPackage())
+               .add(vo.getInvoiceCode())
+               .add(vo.getMachineCode())
+               .add(vo.getCheckCode())
+               .add(vo.getPdfUrl())
+               .add(vo.getQrCodeUrl())
+               .add(vo.getTotalAmount())
+               .add(vo.getSelfPayAmount())
+               .add(vo.getInsuranceAmount())
+               .add(vo.getRemark());
+        return version.toETag("d");
+    }
+    
+    /**
+     * 文件的ETag（强ETag，文件内容不变时字节一致）
+     * 
+     * @param length 文件长度（字节）
+     * @param lastModified 文件修改时间（毫秒）
+     * @return 强ETag
+     */
+    public static String forFile(long length, long lastModified) {
+        return "\"f" + VERSION + "-" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+    
+    /**
+     * 按内容哈希生成的ETag（强ETag，内容相同则ETag相同，与文件何时生成无关）
+     * 
+     * @param sha256Hex 内容的SHA-256（十六进制）
+     * @return 强ETag
+     */
+    public static String forContent(String sha256Hex) {
+        return "\"c" + VERSION + "-" + sha256Hex.substring(0, 32) + "\"";
+    }
+    
+    /**
+     * 累加一个字段（null与空字符串区分，字段之间加分隔，避免拼接歧义）
+     */
+    private ContentVersion add(String value) {
+        if (value == null) {
+            mix(0xFFFF);
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                mix(value.charAt(i));
+            }
+        }
+        mix(0xFFFE);
+        return this;
+    }
+    
+    private void mix(int c) {
+        hash ^= c;
+        hash *= FNV_PRIME;
+    }
+    
+    private String toETag(String kind) {
+        return "W/\"" + kind + VERSION + "-" + Long.toHexString(hash) + "\"";
+    }
+}
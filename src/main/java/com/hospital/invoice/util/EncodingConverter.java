@@ -1,6 +1,7 @@
 package com.hospital.invoice.util;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 /**
  * 字符编码转换工具类
@@ -20,6 +21,11 @@ import java.io.UnsupportedEncodingException;
  */
 public class EncodingConverter {
     
+    /**
+     * GBK字符集（数据库中文数据的实际编码）
+     */
+    private static final Charset GBK = Charset.forName("GBK");
+    
     /**
      * 方法1：ISO-8859-1 -> GBK（推荐，最常用）
      * 
@@ -166,6 +172,40 @@ public class EncodingConverter {
         return hasChinese && !hasReplacementChar && !hasGarbledText;
     }
     
+    /**
+     * 将数据库原始字节按GBK解码为字符串
+     * 
+     * 使用场景：
+     * - 视图中的中文列按byte[]读取（ResultSet.getBytes或实体byte[]字段）
+     * - 字节本身就是GBK编码，直接解码即可，无需ISO-8859-1中转
+     * 
+     * @param bytes 原始字节，可以为null
+     * @return 解码后的字符串，bytes为null时返回null
+     */
+    public static String decodeGbk(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        return new String(bytes, GBK);
+    }
+    
+    /**
+     * 将字符串按GBK编码为字节（decodeGbk 的逆操作）
+     * 
+     * 使用场景：
+     * - 查询条件需要与数据库中GBK字节形式的中文列直接比较
+     * - 作为RAW类型绑定变量传给SQL，避免经过数据库字符集转换
+     * 
+     * @param str 字符串，可以为null
+     * @return GBK字节，str为null时返回null
+     */
+    public static byte[] encodeGbk(String str) {
+        if (str == null) {
+            return null;
+        }
+        return str.getBytes(GBK);
+    }
+    
     /**
      * 批量转换字符串数组
      * 
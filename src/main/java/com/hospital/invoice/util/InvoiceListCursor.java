@@ -0,0 +1,94 @@
+package com.hospital.invoice.util;
+
+import com.hospital.invoice.common.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 发票列表分页游标
+ * 
+ * 排序规则：CREATE_TIME DESC, RCPT_NO ASC（Oracle中DESC排序NULL值排在最前）
+ * 游标记录上一页最后一行的排序键，下一页从该位置之后继续查询（seek），
+ * 因此翻到任意深度的页，查询代价都与第一页相同。
+ * 
+ * 对外是不透明字符串：Base64URL("v1|开票时间毫秒数|收据号")，开票时间为空时记为"-"。
+ * 前端只需原样回传，不应解析其内容。
+ */
+public final class InvoiceListCursor {
+    
+    /**
+     * 游标格式版本，格式变化时递增，旧游标将被拒绝
+     */
+    private static final String VERSION = "v1";
+    
+    private static final String SEPARATOR = "|";
+    
+    private static final String NULL_TIME = "-";
+    
+    /**
+     * 上一页最后一行的开票时间（可能为null）
+     */
+    private final Date createTime;
+    
+    /**
+     * 上一页最后一行的收据号
+     */
+    private final String rcptNo;
+    
+    public InvoiceListCursor(Date createTime, String rcptNo) {
+        this.createTime = createTime;
+        this.rcptNo = rcptNo;
+    }
+    
+    public Date getCreateTime() {
+        return createTime;
+    }
+    
+    public String getRcptNo() {
+        return rcptNo;
+    }
+    
+    /**
+     * 编码为不透明字符串
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = VERSION + SEPARATOR
+                + (createTime != null ? String.valueOf(createTime.getTime()) : NULL_TIME) + SEPARATOR
+                + rcptNo;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标字符串
+     * 
+     * @param token 前端回传的游标，为空表示查询第一页
+     * @return 游标对象，第一页返回null
+     * @throws BusinessException 游标格式不合法时抛出（错误码400）
+     */
+    public static InvoiceListCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        String[] parts;
+        Date createTime;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+                throw invalid();
+            }
+            createTime = NULL_TIME.equals(parts[1]) ? null : new Date(Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            // Base64解码失败和 NumberFormatException 都是 IllegalArgumentException 的子类
+            throw invalid();
+        }
+        return new InvoiceListCursor(createTime, parts[2]);
+    }
+    
+    private static BusinessException invalid() {
+        return new BusinessException(400, "无效的分页游标");
+    }
+}
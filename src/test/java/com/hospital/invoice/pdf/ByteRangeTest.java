@@ -0,0 +1,80 @@
+package com.hospital.invoice.pdf;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ByteRange 解析测试
+ */
+class ByteRangeTest {
+    
+    @Test
+    void parsesClosedRange() {
+        ByteRange range = ByteRange.parse("bytes=2-5", 10);
+        assertEquals(2, range.getStart());
+        assertEquals(5, range.getEnd());
+        assertEquals(4, range.length());
+        assertEquals("bytes 2-5/10", range.toContentRange(10));
+    }
+    
+    @Test
+    void parsesOpenEndedRange() {
+        ByteRange range = ByteRange.parse("bytes=7-", 10);
+        assertEquals(7, range.getStart());
+        assertEquals(9, range.getEnd());
+    }
+    
+    @Test
+    void clampsEndToLength() {
+        ByteRange range = ByteRange.parse("bytes=0-99", 10);
+        assertEquals(0, range.getStart());
+        assertEquals(9, range.getEnd());
+    }
+    
+    @Test
+    void parsesSuffixRange() {
+        ByteRange range = ByteRange.parse("bytes=-4", 10);
+        assertEquals(6, range.getStart());
+        assertEquals(9, range.getEnd());
+    }
+    
+    @Test
+    void suffixLongerThanFileReturnsWholeFile() {
+        ByteRange range = ByteRange.parse("bytes=-20", 10);
+        assertEquals(0, range.getStart());
+        assertEquals(9, range.getEnd());
+    }
+    
+    @Test
+    void zeroSuffixIsUnsatisfiable() {
+        assertThrows(ByteRange.UnsatisfiableException.class, () -> ByteRange.parse("bytes=-0", 10));
+    }
+    
+    @Test
+    void suffixOfEmptyFileIsUnsatisfiable() {
+        assertThrows(ByteRange.UnsatisfiableException.class, () -> ByteRange.parse("bytes=-5", 0));
+    }
+    
+    @Test
+    void startAtOrBeyondLengthIsUnsatisfiable() {
+        assertThrows(ByteRange.UnsatisfiableException.class, () -> ByteRange.parse("bytes=10-", 10));
+        assertThrows(ByteRange.UnsatisfiableException.class, () -> ByteRange.parse("bytes=15-20", 10));
+    }
+    
+    @Test
+    void multipleRangesAreIgnored() {
+        assertNull(ByteRange.parse("bytes=0-1,4-5", 10));
+    }
+    
+    @Test
+    void invalidHeadersAreIgnored() {
+        assertNull(ByteRange.parse(null, 10));
+        assertNull(ByteRange.parse("items=0-1", 10));
+        assertNull(ByteRange.parse("bytes=5", 10));
+        assertNull(ByteRange.parse("bytes=5-2", 10));
+        assertNull(ByteRange.parse("bytes=a-b", 10));
+    }
+}
@@ -0,0 +1,172 @@
+package com.hospital.invoice.pdf;
+
+import com.hospital.invoice.util.ContentVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * PdfStreamer 断点续传测试（Range / If-Range）
+ */
+class PdfStreamerTest {
+    
+    private static final byte[] CONTENT = "0123456789".getBytes();
+    
+    private static final String ETAG = "\"c1-0123456789abcdef0123456789abcdef\"";
+    
+    /**
+     * 2023-11-14 22:13:20 GMT
+     */
+    private static final long LAST_MODIFIED = 1700000000000L;
+    
+    private static final String LAST_MODIFIED_HTTP = "Tue, 14 Nov 2023 22:13:20 GMT";
+    
+    private PdfStreamer streamer;
+    
+    private MockHttpServletRequest request;
+    
+    private MockHttpServletResponse response;
+    
+    @BeforeEach
+    void setUp() {
+        streamer = new PdfStreamer();
+        ReflectionTestUtils.setField(streamer, "sendfileMinBytes", 49152L);
+        request = new MockHttpServletRequest("GET", "/api/invoice/download");
+        response = new MockHttpServletResponse();
+    }
+    
+    @Test
+    void writesWholeFileWithoutRange() throws Exception {
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertEquals(200, response.getStatus());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+    
+    @Test
+    void writesPartialContentForRange() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertPartial("bytes 2-5/10", "2345");
+    }
+    
+    @Test
+    void writesPartialContentWhenIfRangeETagMatches() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertPartial("bytes 7-9/10", "789");
+    }
+    
+    @Test
+    void writesWholeFileWhenIfRangeETagDiffers() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"c1-ffffffffffffffffffffffffffffffff\"");
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertWhole();
+    }
+    
+    @Test
+    void weakIfRangeETagNeverMatches() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "W/" + ETAG);
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertWhole();
+    }
+    
+    @Test
+    void writesPartialContentWhenIfRangeDateMatches() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED_HTTP);
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertPartial("bytes 2-5/10", "2345");
+    }
+    
+    @Test
+    void writesWholeFileWhenIfRangeDateDiffers() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "Tue, 14 Nov 2023 22:13:21 GMT");
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertWhole();
+    }
+    
+    @Test
+    void writesWholeFileForIfRangeDateWhenLastModifiedUnknown() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED_HTTP);
+        streamer.write(InvoicePdf.memory(CONTENT, -1, ETAG), "invoice.pdf", request, response);
+        assertWhole();
+    }
+    
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        streamer.write(memory(), "invoice.pdf", request, response);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+    
+    @Test
+    void writesPartialLocalFileWhenIfRangeETagMatches(@TempDir Path dir) throws Exception {
+        Path file = Files.write(dir.resolve("invoice.pdf"), CONTENT);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        streamer.write(InvoicePdf.local(file, CONTENT.length, LAST_MODIFIED, ETAG), "invoice.pdf", request, response);
+        assertPartial("bytes 4-9/10", "456789");
+    }
+    
+    @Test
+    void localFileWithoutContentHashUsesFileVersion(@TempDir Path dir) throws Exception {
+        Path file = Files.write(dir.resolve("invoice.pdf"), CONTENT);
+        String fileETag = ContentVersion.forFile(CONTENT.length, LAST_MODIFIED);
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-0");
+        request.addHeader(HttpHeaders.IF_RANGE, fileETag);
+        streamer.write(InvoicePdf.local(file, CONTENT.length, LAST_MODIFIED), "invoice.pdf", request, response);
+        assertEquals(fileETag, response.getHeader(HttpHeaders.ETAG));
+        assertPartial("bytes 0-0/10", "0");
+    }
+    
+    @Test
+    void sendfileUsesRequestedRange(@TempDir Path dir) throws Exception {
+        Path file = Files.write(dir.resolve("invoice.pdf"), CONTENT);
+        ReflectionTestUtils.setField(streamer, "sendfileMinBytes", 0L);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        streamer.write(InvoicePdf.local(file, CONTENT.length, LAST_MODIFIED, ETAG), "invoice.pdf", request, response);
+        assertEquals(206, response.getStatus());
+        assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+    
+    private static InvoicePdf memory() {
+        return InvoicePdf.memory(CONTENT, LAST_MODIFIED, ETAG);
+    }
+    
+    private void assertPartial(String contentRange, String body) {
+        assertEquals(206, response.getStatus());
+        assertEquals(contentRange, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(body.length(), response.getContentLengthLong());
+        assertArrayEquals(body.getBytes(), response.getContentAsByteArray());
+    }
+    
+    private void assertWhole() {
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+}
@@ -0,0 +1,72 @@
+package com.hospital.invoice.util;
+
+import com.hospital.invoice.common.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * InvoiceListCursor 编码/解析测试
+ */
+class InvoiceListCursorTest {
+    
+    @Test
+    void roundTripsCreateTimeAndRcptNo() {
+        Date createTime = new Date(1700000000123L);
+        InvoiceListCursor cursor = InvoiceListCursor.decode(new InvoiceListCursor(createTime, "R0001").encode());
+        assertEquals(createTime, cursor.getCreateTime());
+        assertEquals("R0001", cursor.getRcptNo());
+    }
+    
+    @Test
+    void roundTripsNullCreateTime() {
+        InvoiceListCursor cursor = InvoiceListCursor.decode(new InvoiceListCursor(null, "R0002").encode());
+        assertNull(cursor.getCreateTime());
+        assertEquals("R0002", cursor.getRcptNo());
+    }
+    
+    @Test
+    void keepsSeparatorInsideRcptNo() {
+        InvoiceListCursor cursor = InvoiceListCursor.decode(new InvoiceListCursor(new Date(0), "R|0003").encode());
+        assertEquals("R|0003", cursor.getRcptNo());
+    }
+    
+    @Test
+    void encodesAsUrlSafeToken() {
+        String token = new InvoiceListCursor(new Date(1700000000123L), "收据/0004?").encode();
+        assertEquals(-1, token.indexOf('+'));
+        assertEquals(-1, token.indexOf('/'));
+        assertEquals(-1, token.indexOf('='));
+    }
+    
+    @Test
+    void blankTokenMeansFirstPage() {
+        assertNull(InvoiceListCursor.decode(null));
+        assertNull(InvoiceListCursor.decode(""));
+        assertNull(InvoiceListCursor.decode("   "));
+    }
+    
+    @Test
+    void rejectsInvalidTokens() {
+        assertInvalid("not base64!");
+        assertInvalid(encode("v1|123"));
+        assertInvalid(encode("v2|123|R0001"));
+        assertInvalid(encode("v1|abc|R0001"));
+        assertInvalid(encode("v1|123|"));
+    }
+    
+    private static void assertInvalid(String token) {
+        BusinessException e = assertThrows(BusinessException.class, () -> InvoiceListCursor.decode(token));
+        assertEquals(400, e.getCode());
+    }
+    
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}